@@ -0,0 +1,56 @@
+package com.filadelfia.store.filadelfiastore.config;
+
+import com.filadelfia.store.filadelfiastore.service.cart.GuestCart;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Moves the guest cart built before login into the user's persisted cart,
+ * then continues to the page that asked for the login (checkout, usually).
+ */
+@Component
+public class CartMergeAuthenticationSuccessHandler extends SavedRequestAwareAuthenticationSuccessHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartMergeAuthenticationSuccessHandler.class);
+
+    private final CartService cartService;
+
+    public CartMergeAuthenticationSuccessHandler(CartService cartService) {
+        this.cartService = cartService;
+        setDefaultTargetUrl("/");
+    }
+
+    @Override
+    public void onAuthenticationSuccess(HttpServletRequest request,
+                                        HttpServletResponse response,
+                                        Authentication authentication) throws IOException, ServletException {
+        HttpSession session = request.getSession(false);
+        GuestCart guestCart = GuestCart.from(session);
+
+        if (guestCart != null && authentication.getPrincipal() instanceof CustomUserDetailsService.CustomUserDetails userDetails) {
+            try {
+                if (!guestCart.isEmpty()) {
+                    cartService.mergeGuestCart(userDetails.getUser().getId(), guestCart.getQuantities());
+                }
+                session.removeAttribute(GuestCart.SESSION_ATTRIBUTE);
+            } catch (RuntimeException e) {
+                // The login itself must not fail; the guest cart stays in the session
+                logger.warn("Could not merge the guest cart of user {}", userDetails.getUsername(), e);
+            }
+        }
+
+        super.onAuthenticationSuccess(request, response, authentication);
+    }
+}
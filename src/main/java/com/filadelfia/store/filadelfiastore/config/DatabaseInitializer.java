@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,13 +15,17 @@ import org.springframework.transaction.annotation.Transactional;
  * Database initialization component for handling schema migrations
  * and data consistency checks on application startup.
  * 
- * This component ensures that the User role column is properly configured
- * for existing records.
+ * This component ensures that the User role column is properly configured,
+ * that every category has a materialized path for existing records and that
+ * the order id sequences start above the ids already in use.
  */
 @Component
 public class DatabaseInitializer {
     
     private static final Logger logger = LoggerFactory.getLogger(DatabaseInitializer.class);
+    
+    // Must match the allocationSize of the order id generators
+    private static final long ORDER_ID_ALLOCATION = 50;
 
     @Autowired
     private JdbcTemplate jdbcTemplate;
@@ -42,6 +47,8 @@ public class DatabaseInitializer {
         try {
             // Check if role column exists and is properly configured
             ensureRoleColumnIntegrity();
+            ensureCategoryPaths();
+            ensureOrderSequences();
             
             logger.info("Database initialization completed successfully");
             
@@ -52,6 +59,56 @@ public class DatabaseInitializer {
         }
     }
     
+    /**
+     * Categories created before the hierarchy existed have no materialized
+     * path; they are all top-level, so their path is just their own id.
+     */
+    private void ensureCategoryPaths() {
+        int updatedRows = jdbcTemplate.update(
+            "UPDATE categories SET path = CONCAT('/', id, '/') WHERE path IS NULL"
+        );
+        if (updatedRows > 0) {
+            logger.info("Backfilled the category path for {} records", updatedRows);
+        }
+    }
+
+    /**
+     * Orders and order items used to take IDENTITY ids. A sequence created
+     * next to those rows starts at 1, so it is moved past the highest id in
+     * use; the pooled generator hands out the block below the value it reads.
+     */
+    private void ensureOrderSequences() {
+        String database = jdbcTemplate.execute(
+            (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        alignSequence(database, "orders_seq", "orders");
+        alignSequence(database, "order_items_seq", "order_items");
+    }
+    
+    private void alignSequence(String database, String sequence, String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        if (maxId == null || maxId == 0) {
+            return;
+        }
+        long next = maxId + ORDER_ID_ALLOCATION + 1;
+        
+        boolean moved;
+        if ("H2".equals(database)) {
+            Long current = jdbcTemplate.queryForObject(
+                "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = ?",
+                Long.class, sequence.toUpperCase());
+            moved = current != null && current < next;
+            if (moved) {
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+            }
+        } else {
+            // Databases without sequences (MySQL) get a one-row table instead
+            moved = jdbcTemplate.update("UPDATE " + sequence + " SET next_val = ? WHERE next_val < ?", next, next) > 0;
+        }
+        if (moved) {
+            logger.info("Moved {} past the existing {} ids (next value {})", sequence, table, next);
+        }
+    }
+
     private void ensureRoleColumnIntegrity() {
         try {
             // First, check if we have any records with invalid role values
@@ -18,9 +18,12 @@ import org.springframework.security.web.csrf.CookieCsrfTokenRepository;
 public class SecurityConfig {
 
     private final CustomAuthenticationFailureHandler authenticationFailureHandler;
+    private final CartMergeAuthenticationSuccessHandler authenticationSuccessHandler;
 
-    public SecurityConfig(CustomAuthenticationFailureHandler authenticationFailureHandler) {
+    public SecurityConfig(CustomAuthenticationFailureHandler authenticationFailureHandler,
+                          CartMergeAuthenticationSuccessHandler authenticationSuccessHandler) {
         this.authenticationFailureHandler = authenticationFailureHandler;
+        this.authenticationSuccessHandler = authenticationSuccessHandler;
     }
 
     @Bean
@@ -42,6 +45,9 @@ public class SecurityConfig {
                     "/error"
                 ).permitAll()
                 
+                // Guest cart (kept in the session until login); checkout still requires login
+                .requestMatchers("/cart", "/cart/add", "/cart/update", "/cart/update-all", "/cart/remove", "/cart/clear").permitAll()
+                
                 // Admin-only pages
                 .requestMatchers("/admin/**", "/users/**").hasRole("ADMIN")
                 
@@ -55,7 +61,7 @@ public class SecurityConfig {
                 .requestMatchers("/admin/payments/**").hasAnyRole("ADMIN", "MANAGER")
                 
                 // API endpoints
-                .requestMatchers("/api/v1/users/**").hasRole("ADMIN")
+                .requestMatchers("/api/v1/users/**", "/api/v1/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/v1/products/**", "/api/v1/categories/**").hasAnyRole("ADMIN", "MANAGER")
                 .requestMatchers("/api/v1/orders/**").hasAnyRole("ADMIN", "MANAGER", "USER")
                 
@@ -65,7 +71,7 @@ public class SecurityConfig {
             .formLogin(form -> form
                 .loginPage("/login")
                 .loginProcessingUrl("/login")
-                .defaultSuccessUrl("/", true)
+                .successHandler(authenticationSuccessHandler)
                 .failureHandler(authenticationFailureHandler)
                 .permitAll()
             )
@@ -0,0 +1,42 @@
+package com.filadelfia.store.filadelfiastore.controller.api;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.filadelfia.store.filadelfiastore.service.cache.CatalogCache;
+import com.filadelfia.store.filadelfiastore.service.maintenance.AbandonedCartSweeper;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/v1/admin/metrics")
+@Tag(name = "Admin Metrics", description = "Operational counters for in-memory caches and background jobs")
+public class AdminMetricsApiController {
+    private final CatalogCache catalogCache;
+    private final AbandonedCartSweeper abandonedCartSweeper;
+
+    public AdminMetricsApiController(CatalogCache catalogCache, AbandonedCartSweeper abandonedCartSweeper) {
+        this.catalogCache = catalogCache;
+        this.abandonedCartSweeper = abandonedCartSweeper;
+    }
+
+    @Operation(summary = "Get runtime metrics", description = "Retrieves hit, miss and eviction counters of the catalog cache and the abandoned cart sweeper's purge counters")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Metrics retrieved successfully")
+    })
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("catalogCache", catalogCache.stats());
+        metrics.put("abandonedCartSweeper", abandonedCartSweeper.stats());
+        return ResponseEntity.ok(metrics);
+    }
+}
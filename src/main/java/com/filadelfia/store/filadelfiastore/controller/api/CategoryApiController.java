@@ -73,14 +73,16 @@ public class CategoryApiController {
         return ResponseEntity.ok(categoryService.searchCategories(q));
     }
 
-    @Operation(summary = "Get category by ID", description = "Retrieves a specific category with its products by ID")
+    @Operation(summary = "Get category by ID", description = "Retrieves a category with its product counts and one keyset page of its products")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Category found"),
         @ApiResponse(responseCode = "404", description = "Category not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDetailedDTO> getCategoryById(@PathVariable Long id) {
-        return categoryService.getCategoryDetailedById(id)
+    public ResponseEntity<CategoryDetailedDTO> getCategoryById(@PathVariable Long id,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size) {
+        return categoryService.getCategoryDetailedById(id, after, size)
                 .map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
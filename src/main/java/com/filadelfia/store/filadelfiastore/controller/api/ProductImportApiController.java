@@ -0,0 +1,86 @@
+package com.filadelfia.store.filadelfiastore.controller.api;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.filadelfia.store.filadelfiastore.exception.custom.ResourceNotFoundException;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductImportJobDTO;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductImportService;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+
+@RestController
+@RequestMapping("/api/v1/products/import")
+@Tag(name = "Product Import", description = "Bulk product import from CSV or JSON lines")
+public class ProductImportApiController {
+    private final ProductImportService productImportService;
+
+    public ProductImportApiController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    @Operation(summary = "Start a bulk import",
+        description = "Takes a CSV (header with name, description, price, stock, category or categoryId, imageUrl, active, featured) " +
+                      "or JSON lines file as the raw request body and imports it in the background. The format comes from " +
+                      "the format parameter, the Content-Type or the fileName extension. Returns the job to poll for progress")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "202", description = "Import accepted"),
+        @ApiResponse(responseCode = "400", description = "Empty or oversized file, or unsupported format")
+    })
+    @PostMapping(consumes = {"text/csv", "application/x-ndjson", "application/jsonl",
+                             MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<ProductImportJobDTO> startImport(InputStream body,
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+            @RequestParam(required = false) String format,
+            @RequestParam(required = false) String fileName) {
+        // Read as it arrives, so the file is not first spooled by the multipart resolver
+        String formatHint = format != null && !format.isBlank() ? format : contentType.getSubtype();
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(productImportService.startImport(body, fileName, formatHint));
+    }
+
+    @Operation(summary = "Get import progress", description = "Retrieves row counts and status of an import job")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Job found"),
+        @ApiResponse(responseCode = "404", description = "Job not found")
+    })
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ProductImportJobDTO> getJob(@PathVariable String jobId) {
+        return productImportService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @Operation(summary = "Download import errors", description = "Downloads the rejected rows of a finished import as CSV")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Error report returned"),
+        @ApiResponse(responseCode = "404", description = "Job not found or still running")
+    })
+    @GetMapping("/{jobId}/errors")
+    public ResponseEntity<Resource> getErrorReport(@PathVariable String jobId) {
+        Path report = productImportService.getErrorReport(jobId)
+                .orElseThrow(() -> new ResourceNotFoundException("Relatório de erros não disponível para a importação " + jobId));
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"import-" + jobId + "-errors.csv\"")
+                .body(new FileSystemResource(report));
+    }
+}
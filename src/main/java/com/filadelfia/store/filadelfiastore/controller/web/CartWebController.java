@@ -1,9 +1,16 @@
 package com.filadelfia.store.filadelfiastore.controller.web;
 
 import com.filadelfia.store.filadelfiastore.model.dto.CartDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemUpdateDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartUpdateFormDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutValidationDTO;
 
+import com.filadelfia.store.filadelfiastore.service.cart.GuestCart;
+import com.filadelfia.store.filadelfiastore.service.idempotency.IdempotencyKeys;
 import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -12,21 +19,28 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Controller
 @RequestMapping("/cart")
-@PreAuthorize("hasAnyRole('USER', 'MANAGER', 'ADMIN')")
 public class CartWebController {
     
     private CartService cartService;
+    private IdempotencyKeys idempotencyKeys;
 
-    public CartWebController(CartService cartService) {
+    public CartWebController(CartService cartService, IdempotencyKeys idempotencyKeys) {
         this.cartService = cartService;
+        this.idempotencyKeys = idempotencyKeys;
     }
     
     @GetMapping
-    public String viewCart(Model model) {
-        Long userId = getCurrentUserId();
-        CartDTO cart = cartService.getCartByUserId(userId);
+    public String viewCart(Model model, HttpServletRequest request) {
+        Long userId = findCurrentUserId();
+        CartDTO cart = userId != null
+            ? cartService.getCartByUserId(userId)
+            : cartService.getGuestCart(GuestCart.quantitiesOf(request.getSession(false)));
         
         model.addAttribute("cart", cart);
         model.addAttribute("totalItems", cart.getTotalItems());
@@ -40,10 +54,19 @@ public class CartWebController {
     public String addToCart(@RequestParam Long productId, 
                            @RequestParam(defaultValue = "1") Integer quantity,
                            RedirectAttributes redirectAttributes,
+                           HttpServletRequest request,
                            @RequestHeader(value = "referer", required = false) String referer) {
         try {
-            Long userId = getCurrentUserId();
-            cartService.addItemToCart(userId, productId, quantity);
+            Long userId = findCurrentUserId();
+            if (userId != null) {
+                cartService.addItemToCart(userId, productId, quantity);
+            } else {
+                // An unknown id is refused before a cart is made for it
+                cartService.requireProducts(List.of(productId));
+                // Only a visitor who adds something gets a session
+                GuestCart.getOrCreate(request.getSession()).add(productId, quantity);
+                saveGuestCart(request);
+            }
             
             redirectAttributes.addFlashAttribute("successMessage", 
                 "Produto adicionado ao carrinho com sucesso!");
@@ -62,11 +85,17 @@ public class CartWebController {
     @PostMapping("/update")
     public String updateCartItem(@RequestParam Long productId, 
                                 @RequestParam Integer quantity,
-                                RedirectAttributes redirectAttributes) {
+                                RedirectAttributes redirectAttributes,
+                                HttpServletRequest request) {
         try {
-            Long userId = getCurrentUserId();
+            Long userId = findCurrentUserId();
             
-            if (quantity <= 0) {
+            if (userId == null) {
+                requireGuestCart(request).update(productId, quantity);
+                saveGuestCart(request);
+                redirectAttributes.addFlashAttribute("successMessage", 
+                    quantity <= 0 ? "Item removido do carrinho!" : "Quantidade atualizada!");
+            } else if (quantity <= 0) {
                 cartService.removeItemFromCart(userId, productId);
                 redirectAttributes.addFlashAttribute("successMessage", 
                     "Item removido do carrinho!");
@@ -83,12 +112,55 @@ public class CartWebController {
         return "redirect:/cart";
     }
     
+    @PostMapping("/update-all")
+    public String updateCartItems(@ModelAttribute CartUpdateFormDTO form,
+                                  RedirectAttributes redirectAttributes,
+                                  HttpServletRequest request) {
+        try {
+            Long userId = findCurrentUserId();
+            
+            if (userId != null) {
+                cartService.updateCartItems(userId, form.getItems());
+            } else {
+                Map<Long, Integer> changes = new LinkedHashMap<>();
+                for (CartItemUpdateDTO change : form.getItems()) {
+                    if (change.getProductId() != null && change.getQuantity() != null) {
+                        changes.put(change.getProductId(), change.getQuantity());
+                    }
+                }
+                // Products new to the cart must exist, as for a logged-in user
+                GuestCart cart = requireGuestCart(request);
+                Map<Long, Integer> current = cart.getQuantities();
+                cartService.requireProducts(changes.entrySet().stream()
+                    .filter(change -> change.getValue() > 0 && !current.containsKey(change.getKey()))
+                    .map(Map.Entry::getKey)
+                    .toList());
+                cart.updateAll(changes);
+                saveGuestCart(request);
+            }
+            
+            redirectAttributes.addFlashAttribute("successMessage", 
+                "Carrinho atualizado!");
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("errorMessage", 
+                "Erro ao atualizar carrinho: " + e.getMessage());
+        }
+        
+        return "redirect:/cart";
+    }
+    
     @PostMapping("/remove")
     public String removeFromCart(@RequestParam Long productId,
-                                RedirectAttributes redirectAttributes) {
+                                RedirectAttributes redirectAttributes,
+                                HttpServletRequest request) {
         try {
-            Long userId = getCurrentUserId();
-            cartService.removeItemFromCart(userId, productId);
+            Long userId = findCurrentUserId();
+            if (userId != null) {
+                cartService.removeItemFromCart(userId, productId);
+            } else {
+                requireGuestCart(request).remove(productId);
+                saveGuestCart(request);
+            }
             
             redirectAttributes.addFlashAttribute("successMessage", 
                 "Item removido do carrinho!");
@@ -101,10 +173,14 @@ public class CartWebController {
     }
     
     @PostMapping("/clear")
-    public String clearCart(RedirectAttributes redirectAttributes) {
+    public String clearCart(RedirectAttributes redirectAttributes, HttpServletRequest request) {
         try {
-            Long userId = getCurrentUserId();
-            cartService.clearCart(userId);
+            Long userId = findCurrentUserId();
+            if (userId != null) {
+                cartService.clearCart(userId);
+            } else if (GuestCart.from(request.getSession(false)) != null) {
+                request.getSession(false).removeAttribute(GuestCart.SESSION_ATTRIBUTE);
+            }
             
             redirectAttributes.addFlashAttribute("successMessage", 
                 "Carrinho limpo com sucesso!");
@@ -117,28 +193,59 @@ public class CartWebController {
     }
     
     @GetMapping("/checkout")
+    @PreAuthorize("hasAnyRole('USER', 'MANAGER', 'ADMIN')")
     public String checkout(Model model) {
         Long userId = getCurrentUserId();
-        CartDTO cart = cartService.getCartByUserId(userId);
         
+        // Reprice first, so the summary below already shows current prices;
+        // a diff handed over by a refused order takes precedence
+        CheckoutValidationDTO validation = cartService.validateForCheckout(userId);
+        if (!model.containsAttribute("checkoutValidation")) {
+            model.addAttribute("checkoutValidation", validation);
+        }
+        
+        CartDTO cart = cartService.getCartByUserId(userId);
         if (cart.isEmpty()) {
             return "redirect:/cart?error=empty";
         }
         
         model.addAttribute("cart", cart);
+        model.addAttribute("idempotencyKey", idempotencyKeys.issue());
         model.addAttribute("activePage", "cart");
         model.addAttribute("pageTitle", "Finalizar Pedido");
         
         return "cart/checkout";
     }
     
-    private Long getCurrentUserId() {
+    private GuestCart requireGuestCart(HttpServletRequest request) {
+        GuestCart guestCart = GuestCart.from(request.getSession(false));
+        if (guestCart == null) {
+            throw new IllegalArgumentException("Cart item not found");
+        }
+        return guestCart;
+    }
+    
+    // Re-set after a change so replicated sessions pick it up
+    private void saveGuestCart(HttpServletRequest request) {
+        request.getSession().setAttribute(GuestCart.SESSION_ATTRIBUTE, GuestCart.from(request.getSession()));
+    }
+    
+    /**
+     * The logged-in user's id, or null for an anonymous visitor.
+     */
+    private Long findCurrentUserId() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        if (auth != null && auth.getPrincipal() instanceof com.filadelfia.store.filadelfiastore.config.CustomUserDetailsService.CustomUserDetails) {
-            com.filadelfia.store.filadelfiastore.config.CustomUserDetailsService.CustomUserDetails userDetails = 
-                (com.filadelfia.store.filadelfiastore.config.CustomUserDetailsService.CustomUserDetails) auth.getPrincipal();
+        if (auth != null && auth.getPrincipal() instanceof com.filadelfia.store.filadelfiastore.config.CustomUserDetailsService.CustomUserDetails userDetails) {
             return userDetails.getUser().getId();
         }
-        throw new RuntimeException("User not authenticated");
+        return null;
+    }
+    
+    private Long getCurrentUserId() {
+        Long userId = findCurrentUserId();
+        if (userId == null) {
+            throw new RuntimeException("User not authenticated");
+        }
+        return userId;
     }
 }
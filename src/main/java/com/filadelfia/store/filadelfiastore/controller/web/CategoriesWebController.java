@@ -59,6 +59,7 @@ public class CategoriesWebController {
     public String createCategoryForm(Model model) {        
         model.addAttribute("pageTitle", "Nova Categoria");        
         model.addAttribute("categoryDTO", new CategoryDTO()); // Objeto para o formulário
+        addParentOptions(model, null);
 
         model.addAttribute("activePage", activePage);
         return "pages/category/create_category";
@@ -74,6 +75,7 @@ public class CategoriesWebController {
         if (bindingResult.hasErrors()) {
             model.addAttribute("pageTitle", "Nova Categoria");
             model.addAttribute("activePage", activePage);
+            addParentOptions(model, categoryDTO);
             return "pages/category/create_category";
         }
         
@@ -85,6 +87,7 @@ public class CategoriesWebController {
             model.addAttribute("errorMessage", "Erro ao criar categoria: " + e.getMessage());
             model.addAttribute("pageTitle", "Nova Categoria");
             model.addAttribute("activePage", activePage);
+            addParentOptions(model, categoryDTO);
             return "pages/category/create_category";
         }
     }
@@ -101,6 +104,7 @@ public class CategoriesWebController {
         model.addAttribute("categoryDTO", categoryOpt.get());
         model.addAttribute("isEdit", true);        
         model.addAttribute("activePage", activePage);
+        addParentOptions(model, categoryOpt.get());
         
         return "pages/category/create_category";
     }
@@ -117,10 +121,13 @@ public class CategoriesWebController {
             model.addAttribute("pageTitle", "Editar Categoria");
             model.addAttribute("isEdit", true);
             model.addAttribute("activePage", activePage);
+            addParentOptions(model, categoryDTO);
             return "pages/category/create_category";
         }
         
         try {
+            // The form always sends the parent; an empty choice means the top level
+            categoryDTO.setMoveToRoot(categoryDTO.getParentId() == null);
             categoryService.updateCategory(id, categoryDTO);
             redirectAttributes.addFlashAttribute("successMessage", "Categoria atualizada com sucesso!");
             return "redirect:/categories/" + id;
@@ -129,6 +136,7 @@ public class CategoriesWebController {
             model.addAttribute("pageTitle", "Editar Categoria");
             model.addAttribute("isEdit", true);
             model.addAttribute("activePage", activePage);
+            addParentOptions(model, categoryDTO);
             return "pages/category/create_category";
         }
     }
@@ -163,4 +171,14 @@ public class CategoriesWebController {
         return "redirect:/categories";
     }
 
+    /**
+     * Candidate parents for the form; a category cannot move under its own subtree.
+     */
+    private void addParentOptions(Model model, CategoryDTO editing) {
+        String ownPath = editing != null && editing.getId() != null ? editing.getPath() : null;
+        model.addAttribute("parentOptions", categoryService.getCategoryTree().stream()
+            .filter(node -> ownPath == null || !node.getPath().startsWith(ownPath))
+            .toList());
+    }
+
 }
\ No newline at end of file
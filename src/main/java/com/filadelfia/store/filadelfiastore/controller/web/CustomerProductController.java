@@ -1,15 +1,20 @@
 package com.filadelfia.store.filadelfiastore.controller.web;
 
-import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.FacetedSearchResultDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductFacetQuery;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductSliceDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.SuggestionDTO;
 import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
 import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,6 +23,9 @@ import java.util.Optional;
 @RequestMapping("/shop")
 public class CustomerProductController {
 
+    private static final int SHOP_PAGE_SIZE = 24;
+    private static final int RELATED_PRODUCTS_LIMIT = 4;
+
     private final ProductService productService;
     private final CategoryService categoryService;
 
@@ -30,44 +38,53 @@ public class CustomerProductController {
     public String shopHome(
             @RequestParam(value = "category", required = false) String category,
             @RequestParam(value = "search", required = false) String search,
+            @RequestParam(value = "after", required = false) String after,
             Model model) {
         
         model.addAttribute("pageTitle", "Produtos");
         model.addAttribute("activePage", "shop");
 
-        // Get all categories for filter
-        List<CategoryDTO> categories = categoryService.getAllCategories();
-        model.addAttribute("categories", categories);
+        // Category navigation, served from the in-memory tree
+        model.addAttribute("categories", categoryService.getCategoryTree());
 
-        // Get products based on filters
-        List<ProductDTO> products;
-        
+        // Get products based on filters, one page at a time
         if (search != null && !search.trim().isEmpty()) {
-            products = productService.searchProducts(search.trim());
+            addSlice(model, productService.searchProducts(search.trim(), after, SHOP_PAGE_SIZE), after);
             model.addAttribute("searchTerm", search);
             model.addAttribute("pageTitle", "Pesquisa: " + search);
         } else if (category != null && !category.trim().isEmpty()) {
-            products = productService.getProductsByCategory(category);
+            addSlice(model, productService.getProductsByCategory(category, after, SHOP_PAGE_SIZE), after);
             model.addAttribute("selectedCategory", category);
+            categoryService.getCategoryNode(category)
+                .ifPresent(node -> model.addAttribute("selectedCategoryPath", node.getFullName()));
             model.addAttribute("pageTitle", "Categoria: " + category);
         } else {
             // Show only featured products in the main shop page
-            products = productService.getFeaturedProducts();
+            List<ProductDTO> products = productService.getFeaturedProducts();
+            model.addAttribute("products", products);
+            model.addAttribute("totalProducts", products.size());
             model.addAttribute("pageTitle", "Produtos em Destaque");
             model.addAttribute("showingFeatured", true);
         }
 
-        // Filter only active products for customers (already handled in service for featured products)
-        if (search != null || category != null) {
-            products = products.stream()
-                    .filter(ProductDTO::getActive)
-                    .toList();
-        }
+        return "pages/customer/shop";
+    }
 
-        model.addAttribute("products", products);
-        model.addAttribute("totalProducts", products.size());
+    /**
+     * Faceted refinement for the shop, e.g.
+     * /shop/facets?q=biblia&category=3&price=25-50&inStock=true
+     */
+    @GetMapping("/facets")
+    @ResponseBody
+    public FacetedSearchResultDTO facets(@ModelAttribute ProductFacetQuery query) {
+        return productService.searchWithFacets(query);
+    }
 
-        return "pages/customer/shop";
+    @GetMapping("/suggest")
+    @ResponseBody
+    public List<SuggestionDTO> suggest(@RequestParam(value = "q", required = false) String query,
+                                       @RequestParam(value = "limit", defaultValue = "8") int limit) {
+        return productService.suggest(query, limit);
     }
 
     @GetMapping("/product/{id}")
@@ -92,11 +109,7 @@ public class CustomerProductController {
         model.addAttribute("activePage", "shop");
 
         // Get related products from the same category
-        List<ProductDTO> relatedProducts = productService.getProductsByCategory(product.getCategoryName())
-                .stream()
-                .filter(p -> !p.getId().equals(id) && p.getActive())
-                .limit(4)
-                .toList();
+        List<ProductDTO> relatedProducts = productService.getRelatedProducts(product, RELATED_PRODUCTS_LIMIT);
         
         model.addAttribute("relatedProducts", relatedProducts);
 
@@ -104,42 +117,43 @@ public class CustomerProductController {
     }
 
     @GetMapping("/category/{categoryName}")
-    public String productsByCategory(@PathVariable String categoryName, Model model) {
-        List<ProductDTO> products = productService.getProductsByCategory(categoryName)
-                .stream()
-                .filter(ProductDTO::getActive)
-                .toList();
-
-        // Get all categories for filter
-        List<CategoryDTO> categories = categoryService.getAllCategories();
-        model.addAttribute("categories", categories);
+    public String productsByCategory(@PathVariable String categoryName,
+                                     @RequestParam(value = "after", required = false) String after,
+                                     Model model) {
+        ProductSliceDTO slice = productService.getProductsByCategory(categoryName, after, SHOP_PAGE_SIZE);
+
+        model.addAttribute("categories", categoryService.getCategoryTree());
+        categoryService.getCategoryNode(categoryName)
+            .ifPresent(node -> model.addAttribute("selectedCategoryPath", node.getFullName()));
         
-        model.addAttribute("products", products);
+        addSlice(model, slice, after);
         model.addAttribute("selectedCategory", categoryName);
         model.addAttribute("pageTitle", "Categoria: " + categoryName);
         model.addAttribute("activePage", "shop");
-        model.addAttribute("totalProducts", products.size());
 
         return "pages/customer/shop";
     }
 
     @GetMapping("/search")
-    public String searchProducts(@RequestParam("q") String query, Model model) {
-        List<ProductDTO> products = productService.searchProducts(query)
-                .stream()
-                .filter(ProductDTO::getActive)
-                .toList();
+    public String searchProducts(@RequestParam("q") String query,
+                                 @RequestParam(value = "after", required = false) String after,
+                                 Model model) {
+        ProductSliceDTO slice = productService.searchProducts(query, after, SHOP_PAGE_SIZE);
         
-        // Get all categories for filter
-        List<CategoryDTO> categories = categoryService.getAllCategories();
-        model.addAttribute("categories", categories);
+        model.addAttribute("categories", categoryService.getCategoryTree());
 
-        model.addAttribute("products", products);
+        addSlice(model, slice, after);
         model.addAttribute("searchTerm", query);
         model.addAttribute("pageTitle", "Pesquisa: " + query);
         model.addAttribute("activePage", "shop");
-        model.addAttribute("totalProducts", products.size());
 
         return "pages/customer/shop";
     }
+
+    private void addSlice(Model model, ProductSliceDTO slice, String after) {
+        model.addAttribute("products", slice.getItems());
+        model.addAttribute("totalProducts", slice.getTotalElements());
+        model.addAttribute("nextCursor", slice.getNextCursor());
+        model.addAttribute("isFirstPage", after == null || after.isBlank());
+    }
 }
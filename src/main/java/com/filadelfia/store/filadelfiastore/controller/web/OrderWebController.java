@@ -1,5 +1,9 @@
 package com.filadelfia.store.filadelfiastore.controller.web;
 
+import com.filadelfia.store.filadelfiastore.exception.custom.CheckoutChangedException;
+import com.filadelfia.store.filadelfiastore.exception.custom.InsufficientStockException;
+import com.filadelfia.store.filadelfiastore.exception.custom.InvalidOperationException;
+import com.filadelfia.store.filadelfiastore.exception.custom.RepeatedRequestException;
 import com.filadelfia.store.filadelfiastore.model.dto.CartDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.OrderDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.User;
@@ -7,6 +11,7 @@ import com.filadelfia.store.filadelfiastore.model.enums.OrderStatus;
 import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
 import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
 import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
+import com.filadelfia.store.filadelfiastore.service.idempotency.IdempotencyKeys;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -23,12 +28,16 @@ import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 @RequestMapping("/orders")
 public class OrderWebController {
     
+    private static final String CREATE_ORDER_SCOPE = "order:create";
+    
     private OrderService orderService;
     private CartService cartService;
+    private IdempotencyKeys idempotencyKeys;
 
-    public OrderWebController(OrderService orderService, CartService cartService) {
+    public OrderWebController(OrderService orderService, CartService cartService, IdempotencyKeys idempotencyKeys) {
         this.orderService = orderService;
         this.cartService = cartService;
+        this.idempotencyKeys = idempotencyKeys;
     }
     
     @GetMapping("/my")
@@ -98,26 +107,44 @@ public class OrderWebController {
                              @RequestParam(required = false) String shippingCity,
                              @RequestParam(required = false) String shippingState,
                              @RequestParam(required = false) String shippingZipCode,
+                             @RequestParam(required = false) String idempotencyKey,
                              RedirectAttributes redirectAttributes) {
         try {
             Long userId = getCurrentUserId();
             
-            // Check if cart is not empty
-            CartDTO cart = cartService.getCartByUserId(userId);
-            if (cart.isEmpty()) {
-                redirectAttributes.addFlashAttribute("errorMessage", 
-                    "Carrinho está vazio!");
-                return "redirect:/cart";
-            }
-            
-            OrderDTO order = orderService.createOrderFromCartWithAddress(userId, paymentMethod, 
-                addressId, shippingStreet, shippingNumber, shippingComplement, 
-                shippingNeighborhood, shippingCity, shippingState, shippingZipCode);
+            // A double click or a resent form gets the order the first submission created
+            String fingerprint = IdempotencyKeys.fingerprint(paymentMethod, addressId, shippingStreet, shippingNumber,
+                shippingComplement, shippingNeighborhood, shippingCity, shippingState, shippingZipCode);
+            OrderDTO order = idempotencyKeys.execute(CREATE_ORDER_SCOPE, userId, idempotencyKey, fingerprint, () -> {
+                // Check if cart is not empty
+                CartDTO cart = cartService.getCartByUserId(userId);
+                if (cart.isEmpty()) {
+                    throw new InvalidOperationException("Carrinho está vazio!");
+                }
+                
+                return orderService.createOrderFromCartWithAddress(userId, paymentMethod, 
+                    addressId, shippingStreet, shippingNumber, shippingComplement, 
+                    shippingNeighborhood, shippingCity, shippingState, shippingZipCode);
+            }, OrderDTO::getId, orderService::getOrderById);
             
             redirectAttributes.addFlashAttribute("successMessage", 
                 "Pedido criado com sucesso! Número: " + order.getOrderNumber());
             return "redirect:/orders/" + order.getId() + "/payment";
             
+        } catch (InvalidOperationException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/cart";
+        } catch (RepeatedRequestException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/cart/checkout";
+        } catch (CheckoutChangedException e) {
+            redirectAttributes.addFlashAttribute("checkoutValidation", e.getValidation());
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/cart/checkout";
+        } catch (InsufficientStockException e) {
+            // The checkout page validates again and shows the lines that ran out
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/cart/checkout";
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", 
                 "Erro ao criar pedido: " + e.getMessage());
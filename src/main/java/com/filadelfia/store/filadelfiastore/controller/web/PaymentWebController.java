@@ -10,6 +10,7 @@ import com.filadelfia.store.filadelfiastore.model.enums.PaymentStatus;
 import com.filadelfia.store.filadelfiastore.service.interfaces.PaymentService;
 import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
 import com.filadelfia.store.filadelfiastore.service.interfaces.UserService;
+import com.filadelfia.store.filadelfiastore.service.idempotency.IdempotencyKeys;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -40,14 +41,19 @@ public class PaymentWebController {
     
     private static final Logger logger = LoggerFactory.getLogger(PaymentWebController.class);
     
+    private static final String PROCESS_PAYMENT_SCOPE = "payment:process";
+    
     private final PaymentService paymentService;
     private final OrderService orderService;
     private final UserService userService;
+    private final IdempotencyKeys idempotencyKeys;
     
-    public PaymentWebController(PaymentService paymentService, OrderService orderService, UserService userService) {
+    public PaymentWebController(PaymentService paymentService, OrderService orderService, UserService userService,
+                                IdempotencyKeys idempotencyKeys) {
         this.paymentService = paymentService;
         this.orderService = orderService;
         this.userService = userService;
+        this.idempotencyKeys = idempotencyKeys;
     }
     
     /**
@@ -84,6 +90,7 @@ public class PaymentWebController {
             model.addAttribute("order", order);
             model.addAttribute("paymentDTO", paymentDTO);
             model.addAttribute("paymentMethods", PaymentMethod.values());
+            model.addAttribute("idempotencyKey", idempotencyKeys.issue());
             
             return "payments/payment-form";
             
@@ -100,6 +107,7 @@ public class PaymentWebController {
     @PostMapping("/process")
     @PreAuthorize("hasRole('USER')")
     public String processPayment(@Valid @ModelAttribute PaymentDTO paymentDTO,
+                               @RequestParam(required = false) String idempotencyKey,
                                @AuthenticationPrincipal UserDetails userDetails,
                                RedirectAttributes redirectAttributes) {
         try {
@@ -116,25 +124,12 @@ public class PaymentWebController {
                 return "redirect:/orders";
             }
             
-            // Process payment based on method
-            Payment payment;
-            switch (paymentDTO.getPaymentMethod()) {
-                case CREDIT_CARD:
-                case DEBIT_CARD:
-                    payment = paymentService.processCreditCardPayment(paymentDTO);
-                    break;
-                case PIX:
-                    payment = paymentService.processPixPayment(paymentDTO);
-                    break;
-                case BOLETO:
-                    payment = paymentService.processBoletoPayment(paymentDTO);
-                    break;
-                case BANK_TRANSFER:
-                    payment = paymentService.processBankTransferPayment(paymentDTO);
-                    break;
-                default:
-                    payment = paymentService.createPayment(paymentDTO);
-            }
+            // A resent form gets the payment the first submission started
+            String fingerprint = IdempotencyKeys.fingerprint(paymentDTO.getOrderId(), paymentDTO.getPaymentMethod(),
+                paymentDTO.getAmount());
+            Payment payment = idempotencyKeys.execute(PROCESS_PAYMENT_SCOPE, order.getUser().getId(), idempotencyKey,
+                fingerprint, () -> processByMethod(paymentDTO), Payment::getId,
+                paymentId -> paymentService.findById(paymentId).orElseThrow());
             
             redirectAttributes.addFlashAttribute("success", "Pagamento iniciado com sucesso");
             return "redirect:/payments/" + payment.getId();
@@ -146,6 +141,23 @@ public class PaymentWebController {
         }
     }
     
+    // Process payment based on method
+    private Payment processByMethod(PaymentDTO paymentDTO) {
+        switch (paymentDTO.getPaymentMethod()) {
+            case CREDIT_CARD:
+            case DEBIT_CARD:
+                return paymentService.processCreditCardPayment(paymentDTO);
+            case PIX:
+                return paymentService.processPixPayment(paymentDTO);
+            case BOLETO:
+                return paymentService.processBoletoPayment(paymentDTO);
+            case BANK_TRANSFER:
+                return paymentService.processBankTransferPayment(paymentDTO);
+            default:
+                return paymentService.createPayment(paymentDTO);
+        }
+    }
+    
     /**
      * Show payment details
      */
@@ -0,0 +1,16 @@
+package com.filadelfia.store.filadelfiastore.event;
+
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by the category write paths after a category is created,
+ * updated or deactivated.
+ */
+@Getter
+@AllArgsConstructor
+public class CategoryChangedEvent {
+    private final CategoryDTO category;
+}
@@ -0,0 +1,16 @@
+package com.filadelfia.store.filadelfiastore.event;
+
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by the product write paths after a product is created or changed.
+ * Carries the mapped state so listeners never need to reload the entity.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductChangedEvent {
+    private final ProductDTO product;
+}
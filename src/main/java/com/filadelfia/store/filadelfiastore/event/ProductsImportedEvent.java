@@ -0,0 +1,15 @@
+package com.filadelfia.store.filadelfiastore.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published once after a bulk import has written its products, instead of
+ * one {@link ProductChangedEvent} per row. Listeners rebuild their
+ * in-memory catalog views from the database.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductsImportedEvent {
+    private final long importedCount;
+}
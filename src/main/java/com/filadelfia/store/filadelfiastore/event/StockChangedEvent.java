@@ -0,0 +1,22 @@
+package com.filadelfia.store.filadelfiastore.event;
+
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Published once per order when its items are taken out of stock or put
+ * back, instead of one {@link ProductChangedEvent} per line. Only the views
+ * that show stock listen, so a checkout does not set off the rebuilds a
+ * product edit does.
+ */
+@Getter
+@AllArgsConstructor
+public class StockChangedEvent {
+    private final List<ProductDTO> products;
+    // Whether some product crossed zero, moving its category's in-stock counter
+    private final boolean inStockCountsChanged;
+}
@@ -0,0 +1,21 @@
+package com.filadelfia.store.filadelfiastore.exception.custom;
+
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutValidationDTO;
+
+/**
+ * Thrown when the cart changed since the user last saw it (new prices,
+ * products gone or out of stock), so the order is not created.
+ */
+public class CheckoutChangedException extends RuntimeException {
+
+    private final CheckoutValidationDTO validation;
+
+    public CheckoutChangedException(CheckoutValidationDTO validation) {
+        super("O carrinho foi atualizado. Revise os itens antes de finalizar o pedido.");
+        this.validation = validation;
+    }
+
+    public CheckoutValidationDTO getValidation() {
+        return validation;
+    }
+}
@@ -0,0 +1,23 @@
+package com.filadelfia.store.filadelfiastore.exception.custom;
+
+import java.util.List;
+
+/**
+ * Thrown when other orders took the stock of some lines between the
+ * checkout check and the reservation. Nothing is reserved and the order is
+ * not created.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final List<String> productNames;
+
+    public InsufficientStockException(List<String> productNames) {
+        super("Estoque insuficiente para: " + String.join(", ", productNames)
+            + ". Revise o carrinho antes de finalizar o pedido.");
+        this.productNames = List.copyOf(productNames);
+    }
+
+    public List<String> getProductNames() {
+        return productNames;
+    }
+}
@@ -0,0 +1,12 @@
+package com.filadelfia.store.filadelfiastore.exception.custom;
+
+/**
+ * Thrown when a form is sent again while its first submission is still
+ * running, or with other data than the first time.
+ */
+public class RepeatedRequestException extends RuntimeException {
+
+    public RepeatedRequestException(String message) {
+        super(message);
+    }
+}
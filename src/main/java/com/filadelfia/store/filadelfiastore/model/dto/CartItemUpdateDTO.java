@@ -0,0 +1,18 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CartItemUpdateDTO {
+    private Long productId;
+    // New absolute quantity; zero or less removes the item
+    private Integer quantity;
+
+}
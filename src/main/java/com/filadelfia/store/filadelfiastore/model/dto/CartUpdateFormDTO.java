@@ -0,0 +1,19 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CartUpdateFormDTO {
+    private List<CartItemUpdateDTO> items = new ArrayList<>();
+
+}
@@ -22,5 +22,11 @@ public class CategoryDTO {
     @NotNull
     private String description;
     private Boolean active = true;
+    // Without a parentId an update keeps the current parent unless this is set
+    private Long parentId;
+    private Boolean moveToRoot = false;
+    private String path;
+    private Long activeProductCount = 0L;
+    private Long inStockCount = 0L;
 
 }
@@ -24,6 +24,9 @@ public class CategoryDetailedDTO {
     @NotNull
     private String description;
     private Boolean active = true;
+    private CategoryProductCountsDTO productCounts = new CategoryProductCountsDTO();
+    // One keyset page of the category's products; follow nextCursor for more
     private List<ProductDTO> products = new ArrayList<>();
+    private String nextCursor;
 
 }
@@ -0,0 +1,28 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CategoryNodeDTO {
+    private Long id;
+    private String name;
+    private String path;
+    private int depth;
+    // Breadcrumb label, e.g. "Bíblias > Estudo > Capa dura"
+    private String fullName;
+    // Active products in this category and everything below it
+    private long productCount;
+    private long inStockCount;
+    private List<CategoryNodeDTO> children = new ArrayList<>();
+
+}
@@ -0,0 +1,18 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CategoryProductCountsDTO {
+    private Long total = 0L;
+    private Long active = 0L;
+    private Long lowStock = 0L;
+
+}
@@ -0,0 +1,26 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import com.filadelfia.store.filadelfiastore.model.enums.CheckoutIssue;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CheckoutLineChangeDTO {
+    private Long productId;
+    private String productName;
+    private Integer quantity;
+    private BigDecimal previousUnitPrice;
+    private BigDecimal currentUnitPrice;
+    private Integer availableStock;
+    private CheckoutIssue issue;
+
+}
@@ -0,0 +1,29 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class CheckoutValidationDTO {
+    private List<CheckoutLineChangeDTO> changes = new ArrayList<>();
+    private BigDecimal previousTotal = BigDecimal.ZERO;
+    private BigDecimal total = BigDecimal.ZERO;
+
+    public boolean isClean() {
+        return changes == null || changes.isEmpty();
+    }
+
+    public boolean isBlocked() {
+        return changes != null && changes.stream().anyMatch(change -> change.getIssue().blocksCheckout());
+    }
+}
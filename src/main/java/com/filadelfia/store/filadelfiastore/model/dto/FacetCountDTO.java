@@ -0,0 +1,19 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class FacetCountDTO {
+    private String value;
+    private String label;
+    private long count;
+    private boolean selected;
+
+}
@@ -0,0 +1,26 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class FacetedSearchResultDTO {
+    private List<ProductDTO> items = new ArrayList<>();
+    private long totalElements;
+    private int page;
+    private int size;
+    // Facet name (category, price, inStock, featured) to its values
+    private Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+
+}
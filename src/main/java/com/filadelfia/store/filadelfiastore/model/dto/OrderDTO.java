@@ -46,6 +46,29 @@ public class OrderDTO {
     private Date shippedAt;
     private Date deliveredAt;
 
+    // Order list summary, read straight from the query; lines are added afterwards
+    public OrderDTO(Long id, String orderNumber, Long userId, String userName, String userEmail,
+                    BigDecimal subtotal, BigDecimal shippingCost, BigDecimal total, OrderStatus status,
+                    PaymentMethod paymentMethod, Boolean paymentConfirmed, String trackingCode,
+                    Date createdAt, Date updatedAt, Date shippedAt, Date deliveredAt) {
+        this.id = id;
+        this.orderNumber = orderNumber;
+        this.userId = userId;
+        this.userName = userName;
+        this.userEmail = userEmail;
+        this.subtotal = subtotal;
+        this.shippingCost = shippingCost;
+        this.total = total;
+        this.status = status;
+        this.paymentMethod = paymentMethod;
+        this.paymentConfirmed = paymentConfirmed;
+        this.trackingCode = trackingCode;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.shippedAt = shippedAt;
+        this.deliveredAt = deliveredAt;
+    }
+
     // Helper methods
     public int getTotalItems() {
         return items != null ? items.stream()
@@ -21,4 +21,16 @@ public class OrderItemDTO {
     private Integer quantity;
     private BigDecimal unitPrice;
     private BigDecimal subtotal;
+
+    // Order list lines, read straight from the query
+    public OrderItemDTO(Long id, Long orderId, Long productId, String productName,
+                        Integer quantity, BigDecimal unitPrice, BigDecimal subtotal) {
+        this.id = id;
+        this.orderId = orderId;
+        this.productId = productId;
+        this.productName = productName;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.subtotal = subtotal;
+    }
 }
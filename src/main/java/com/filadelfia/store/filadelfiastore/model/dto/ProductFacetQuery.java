@@ -0,0 +1,25 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductFacetQuery {
+    private String q;
+    private List<Long> category = new ArrayList<>();
+    private List<String> price = new ArrayList<>();
+    private Boolean inStock;
+    private Boolean featured;
+    private int page = 0;
+    private int size = 24;
+
+}
@@ -0,0 +1,29 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import com.filadelfia.store.filadelfiastore.model.enums.ImportJobStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductImportJobDTO {
+    private String jobId;
+    private String fileName;
+    private String format;
+    private ImportJobStatus status;
+    private long processedRows;
+    private long importedRows;
+    private long failedRows;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String message;
+
+}
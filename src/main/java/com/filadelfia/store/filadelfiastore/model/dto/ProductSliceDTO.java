@@ -0,0 +1,25 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class ProductSliceDTO {
+    private List<ProductDTO> items = new ArrayList<>();
+    private String nextCursor;
+    private long totalElements;
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+}
@@ -0,0 +1,20 @@
+package com.filadelfia.store.filadelfiastore.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+
+public class SuggestionDTO {
+    private String text;
+    // "product" or "category"
+    private String type;
+    private Long id;
+    private String url;
+
+}
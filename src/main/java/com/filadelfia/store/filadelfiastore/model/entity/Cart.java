@@ -10,7 +10,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", uniqueConstraints = @UniqueConstraint(name = "uk_carts_user", columnNames = "user_id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -35,6 +35,11 @@ public class Cart {
     
     @Column(name = "updated_at", nullable = false)
     private Date updatedAt = new Date(System.currentTimeMillis());
+    
+    // Bumped on every write; a stale copy from another tab fails instead of overwriting
+    @Version
+    @Column(nullable = false)
+    private Long version;
 
     // Custom constructor
     public Cart(User user) {
@@ -8,7 +8,7 @@ import java.math.BigDecimal;
 import java.sql.Date;
 
 @Entity
-@Table(name = "cart_items")
+@Table(name = "cart_items", uniqueConstraints = @UniqueConstraint(name = "uk_cart_items_cart_product", columnNames = {"cart_id", "product_id"}))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -40,6 +40,10 @@ public class CartItem {
     
     @Column(name = "updated_at", nullable = false)
     private Date updatedAt = new Date(System.currentTimeMillis());
+    
+    @Version
+    @Column(nullable = false)
+    private Long version;
 
     // Custom constructor
     public CartItem(Cart cart, Product product, Integer quantity, BigDecimal unitPrice) {
@@ -6,17 +6,23 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.sql.Date;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "categories", indexes = {
+    @Index(name = "idx_categories_path", columnList = "path")
+})
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
+// Only dirty columns are written, so saving a category never overwrites the
+// product counters that concurrent product writes increment in place
+@DynamicUpdate
 public class Category {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -34,10 +40,27 @@ public class Category {
 
     private String description;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "parent_id")
+    private Category parent;
+
+    // Ids from the root down to this category, e.g. "/1/5/12/", so a
+    // subtree is every path starting with this one
+    @Column(length = 255)
+    private String path;
+
     @OneToMany(mappedBy = "category", cascade = CascadeType.ALL)
     private List<Product> products = new ArrayList<>();
 
     @Column(nullable = false)
     private Boolean active = true;
 
+    // Denormalized product counts, changed only through CategoryRepository's
+    // bulk updates and repaired by CategoryCounterReconciler
+    @Column(nullable = false)
+    private Long activeProductCount = 0L;
+
+    @Column(nullable = false)
+    private Long inStockCount = 0L;
+
 }
\ No newline at end of file
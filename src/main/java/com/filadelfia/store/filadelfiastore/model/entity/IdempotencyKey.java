@@ -0,0 +1,63 @@
+package com.filadelfia.store.filadelfiastore.model.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * One submission of a form that must not run twice. The row is claimed
+ * before the work starts and gets the id of what the work created once it
+ * commits; a repeated submission finds it and gets that id back.
+ */
+@Entity
+@Table(name = "idempotency_keys",
+       uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_scope_key", columnNames = {"scope", "idempotency_key"}),
+       indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+@Getter
+@Setter
+@NoArgsConstructor
+public class IdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 40)
+    private String scope;
+
+    @Column(name = "idempotency_key", nullable = false, length = 64)
+    private String idempotencyKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // SHA-256 of the submitted values, so a key reused with other data is refused
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // Null while the first submission is still running
+    @Column(name = "resource_id")
+    private Long resourceId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    // State of a claim as read by a waiting submission, see IdempotencyKeyRepository
+    public IdempotencyKey(Long id, Long userId, String requestHash, Long resourceId, LocalDateTime expiresAt) {
+        this.id = id;
+        this.userId = userId;
+        this.requestHash = requestHash;
+        this.resourceId = resourceId;
+        this.expiresAt = expiresAt;
+    }
+
+    public boolean isExpired() {
+        return LocalDateTime.now().isAfter(expiresAt);
+    }
+}
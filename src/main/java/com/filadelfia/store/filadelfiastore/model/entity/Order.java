@@ -20,7 +20,9 @@ import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
 public class Order {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled ids: one sequence call per 50 rows, and inserts can be batched
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true)
@@ -53,6 +55,10 @@ public class Order {
     @Column(name = "payment_confirmed")
     private Boolean paymentConfirmed = false;
     
+    // Whether the items are currently taken out of product stock
+    @Column(name = "stock_reserved")
+    private Boolean stockReserved = false;
+    
     // Shipping Address
     @Column(nullable = false)
     private String shippingStreet;
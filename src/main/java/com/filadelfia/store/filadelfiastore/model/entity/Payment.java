@@ -252,23 +252,13 @@ public class Payment {
     /**
      * Constructor for creating new payment
      */
-    public Payment(Order order, PaymentMethod paymentMethod, BigDecimal amount) {
+    public Payment(Order order, PaymentMethod paymentMethod, BigDecimal amount, String transactionId) {
         this.order = order;
+        this.transactionId = transactionId;
         this.paymentMethod = paymentMethod;
         this.amount = amount;
         this.status = PaymentStatus.PENDING;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
-        generateTransactionId();
-    }
-    
-    /**
-     * Generate unique transaction ID
-     */
-    private void generateTransactionId() {
-        // Format: PAY-YYYYMMDD-HHMMSS-XXX (where XXX is random)
-        String timestamp = LocalDateTime.now().toString().replaceAll("[^0-9]", "").substring(0, 14);
-        String random = String.valueOf((int)(Math.random() * 999));
-        this.transactionId = String.format("PAY-%s-%03d", timestamp, Integer.parseInt(random));
     }
 }
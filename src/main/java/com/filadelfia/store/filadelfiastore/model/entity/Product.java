@@ -13,7 +13,10 @@ import java.math.BigDecimal;
 import java.sql.Date;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+    @Index(name = "idx_products_category_active_name", columnList = "category_id, active, name, id"),
+    @Index(name = "idx_products_category_name", columnList = "category_id, name, id")
+})
 @Getter
 @Setter
 @AllArgsConstructor
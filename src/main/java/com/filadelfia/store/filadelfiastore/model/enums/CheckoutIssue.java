@@ -0,0 +1,25 @@
+package com.filadelfia.store.filadelfiastore.model.enums;
+
+public enum CheckoutIssue {
+    PRICE_CHANGED("Preço alterado"),
+    INSUFFICIENT_STOCK("Estoque insuficiente"),
+    OUT_OF_STOCK("Fora de estoque"),
+    INACTIVE("Produto indisponível");
+
+    private final String displayName;
+
+    CheckoutIssue(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Price changes only need to be seen; the others must be fixed in the cart.
+     */
+    public boolean blocksCheckout() {
+        return this != PRICE_CHANGED;
+    }
+}
@@ -0,0 +1,22 @@
+package com.filadelfia.store.filadelfiastore.model.enums;
+
+public enum ImportJobStatus {
+    QUEUED("Na fila"),
+    RUNNING("Em andamento"),
+    COMPLETED("Concluída"),
+    FAILED("Falhou");
+
+    private final String displayName;
+
+    ImportJobStatus(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
@@ -46,7 +46,9 @@ public class CartMapper {
         dto.setCartId(cartItem.getCart().getId());
         dto.setProductId(cartItem.getProduct().getId());
         dto.setProductName(cartItem.getProduct().getName());
+        dto.setProductImageUrl(cartItem.getProduct().getImageUrl());
         dto.setProductPrice(cartItem.getProduct().getPrice());
+        dto.setUnitPrice(cartItem.getUnitPrice());
         dto.setQuantity(cartItem.getQuantity());
         dto.setSubtotal(cartItem.getSubtotal());
         
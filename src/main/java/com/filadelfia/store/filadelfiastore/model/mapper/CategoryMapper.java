@@ -20,6 +20,10 @@ public class CategoryMapper {
         dto.setName(category.getName());
         dto.setDescription(category.getDescription());
         dto.setActive(category.getActive());
+        dto.setParentId(category.getParent() != null ? category.getParent().getId() : null);
+        dto.setPath(category.getPath());
+        dto.setActiveProductCount(category.getActiveProductCount());
+        dto.setInStockCount(category.getInStockCount());
         
         return dto;
     }
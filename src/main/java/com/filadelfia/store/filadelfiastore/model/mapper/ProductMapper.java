@@ -26,6 +26,7 @@ public class ProductMapper {
         dto.setStock(product.getStock());
         dto.setImageUrl(product.getImageUrl());
         dto.setActive(product.getActive());
+        dto.setFeatured(product.getFeatured());
         
         // Null check for category to prevent NullPointerException
         if (product.getCategory() != null) {
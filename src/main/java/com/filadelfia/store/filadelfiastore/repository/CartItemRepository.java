@@ -1,13 +1,17 @@
 package com.filadelfia.store.filadelfiastore.repository;
 
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.CartItem;
 import com.filadelfia.store.filadelfiastore.model.entity.Cart;
 import com.filadelfia.store.filadelfiastore.model.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.sql.Date;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,4 +27,48 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
     void deleteByCart(Cart cart);    
     void deleteByCartId(Long cartId);    
     boolean existsByCartAndProduct(Cart cart, Product product);
+
+    @Query("SELECT new com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO(" +
+           "ci.id, ci.cart.id, p.id, p.name, p.description, p.imageUrl, p.price, " +
+           "ci.quantity, ci.unitPrice, ci.subtotal, ci.createdAt, ci.updatedAt) " +
+           "FROM CartItem ci JOIN ci.product p WHERE ci.cart.id = :cartId AND p.id = :productId")
+    Optional<CartItemDTO> findDTOByCartIdAndProductId(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    // Single-statement line writes: the right-hand side sees the old quantity.
+    // The casts keep Hibernate from typing the shared parameter as a price, and
+    // the version bump invalidates copies of the line loaded by other requests
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = ci.quantity + :delta, " +
+           "ci.subtotal = ci.unitPrice * (ci.quantity + CAST(:delta AS Integer)), ci.updatedAt = :now, " +
+           "ci.version = ci.version + 1 " +
+           "WHERE ci.cart.id = :cartId AND ci.product.id = :productId")
+    int incrementQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                          @Param("delta") int delta, @Param("now") Date now);
+
+    @Modifying
+    @Query("UPDATE CartItem ci SET ci.quantity = :quantity, ci.subtotal = ci.unitPrice * CAST(:quantity AS Integer), ci.updatedAt = :now, " +
+           "ci.version = ci.version + 1 " +
+           "WHERE ci.cart.id = :cartId AND ci.product.id = :productId")
+    int setQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                    @Param("quantity") int quantity, @Param("now") Date now);
+
+    /**
+     * Inserts the line at the product's current price; 0 rows means the
+     * product does not exist. A concurrent insert of the same product fails
+     * on the (cart, product) unique key instead of doubling the line.
+     */
+    @Modifying
+    @Query("INSERT INTO CartItem (cart, product, quantity, unitPrice, subtotal, createdAt, updatedAt, version) " +
+           "SELECT c, p, :quantity, p.price, p.price * CAST(:quantity AS Integer), :now, :now, 0 " +
+           "FROM Cart c, Product p WHERE c.id = :cartId AND p.id = :productId")
+    int insertLine(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                   @Param("quantity") int quantity, @Param("now") Date now);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id = :cartId AND ci.product.id = :productId")
+    int deleteLine(@Param("cartId") Long cartId, @Param("productId") Long productId);
+
+    @Modifying
+    @Query("DELETE FROM CartItem ci WHERE ci.cart.id IN :cartIds")
+    int deleteByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
 }
@@ -2,11 +2,19 @@ package com.filadelfia.store.filadelfiastore.repository;
 
 import com.filadelfia.store.filadelfiastore.model.entity.Cart;
 import com.filadelfia.store.filadelfiastore.model.entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+
+import java.sql.Date;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -18,4 +26,40 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
     Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);    
     boolean existsByUserId(Long userId);    
     void deleteByUserId(Long userId);
+
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Moves the total by the value of a quantity change on one line, priced
+     * at the line's unit price. Run after the line exists.
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.total = c.total + COALESCE((SELECT ci.unitPrice * :delta FROM CartItem ci " +
+           "WHERE ci.cart.id = :cartId AND ci.product.id = :productId), 0), c.updatedAt = :now, c.version = c.version + 1 WHERE c.id = :cartId")
+    int adjustTotalByQuantityDelta(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                                   @Param("delta") int delta, @Param("now") Date now);
+
+    /**
+     * Moves the total as if the line were set to the given quantity. Run
+     * before the line changes, while it still holds the old quantity.
+     */
+    @Modifying
+    @Query("UPDATE Cart c SET c.total = c.total + COALESCE((SELECT ci.unitPrice * (:quantity - ci.quantity) FROM CartItem ci " +
+           "WHERE ci.cart.id = :cartId AND ci.product.id = :productId), 0), c.updatedAt = :now, c.version = c.version + 1 WHERE c.id = :cartId")
+    int adjustTotalToQuantity(@Param("cartId") Long cartId, @Param("productId") Long productId,
+                              @Param("quantity") int quantity, @Param("now") Date now);
+
+    /**
+     * Next chunk of carts untouched since the cutoff, in id order. The rows
+     * stay locked until the chunk's transaction ends, so a cart cannot be
+     * written to while it is being purged.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c.id FROM Cart c WHERE c.id > :afterId AND c.updatedAt < :cutoff ORDER BY c.id")
+    List<Long> lockAbandonedIds(@Param("afterId") Long afterId, @Param("cutoff") Date cutoff, Pageable chunk);
+
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
@@ -4,6 +4,9 @@ import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 
@@ -17,5 +20,32 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findByNameContainingIgnoreCaseAndActiveTrue(String name);
     boolean existsByName(String name);
     boolean existsByNameAndIdNot(String name, Long id);
+
+    // Moves a whole subtree by rewriting the shared path prefix in one statement
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Category c SET c.path = CONCAT(:newPrefix, SUBSTRING(c.path, LENGTH(:oldPrefix) + 1)) " +
+           "WHERE c.path LIKE CONCAT(:oldPrefix, '%')")
+    int movePaths(@Param("oldPrefix") String oldPrefix, @Param("newPrefix") String newPrefix);
+
+    // Paths of a whole subtree, to tell how many levels it reaches below its root
+    @Query("SELECT c.path FROM Category c WHERE c.path LIKE CONCAT(:prefix, '%')")
+    List<String> findPathsUnder(@Param("prefix") String prefix);
+
+    // In-place increments, so concurrent product writes never lose an update
+    @Modifying
+    @Query("UPDATE Category c SET c.activeProductCount = c.activeProductCount + :activeDelta, " +
+           "c.inStockCount = c.inStockCount + :inStockDelta WHERE c.id = :id")
+    int adjustProductCounters(@Param("id") Long id,
+                              @Param("activeDelta") long activeDelta,
+                              @Param("inStockDelta") long inStockDelta);
+
+    // Recomputes the counters from products, touching only categories that drifted
+    @Modifying
+    @Query("UPDATE Category c SET " +
+           "c.activeProductCount = (SELECT COUNT(p) FROM Product p WHERE p.category = c AND p.active = true), " +
+           "c.inStockCount = (SELECT COUNT(p) FROM Product p WHERE p.category = c AND p.active = true AND p.stock > 0) " +
+           "WHERE c.activeProductCount <> (SELECT COUNT(p) FROM Product p WHERE p.category = c AND p.active = true) " +
+           "OR c.inStockCount <> (SELECT COUNT(p) FROM Product p WHERE p.category = c AND p.active = true AND p.stock > 0)")
+    int reconcileProductCounters();
     
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.filadelfia.store.filadelfiastore.repository;
+
+import com.filadelfia.store.filadelfiastore.model.entity.IdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    // A fresh, unmanaged copy on every call. A submission waiting for the first
+    // one polls this, and a managed entity would keep coming back from the
+    // request's persistence context with the resourceId it was first read with
+    @Query("SELECT new com.filadelfia.store.filadelfiastore.model.entity.IdempotencyKey(" +
+           "k.id, k.userId, k.requestHash, k.resourceId, k.expiresAt) " +
+           "FROM IdempotencyKey k WHERE k.scope = :scope AND k.idempotencyKey = :idempotencyKey")
+    Optional<IdempotencyKey> findCurrentByScopeAndIdempotencyKey(@Param("scope") String scope,
+                                                                @Param("idempotencyKey") String idempotencyKey);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.resourceId = :resourceId WHERE k.id = :id")
+    int complete(@Param("id") Long id, @Param("resourceId") Long resourceId);
+
+    /**
+     * Drops a claim whose work failed, so the same form can be sent again.
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.id = :id AND k.resourceId IS NULL")
+    int release(@Param("id") Long id);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.id = :id AND k.expiresAt < :now")
+    int deleteIfExpired(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.expiresAt < :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
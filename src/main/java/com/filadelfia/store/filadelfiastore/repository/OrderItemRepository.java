@@ -1,12 +1,15 @@
 package com.filadelfia.store.filadelfiastore.repository;
 
+import com.filadelfia.store.filadelfiastore.model.dto.OrderItemDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.OrderItem;
 import com.filadelfia.store.filadelfiastore.model.entity.Order;
+import com.filadelfia.store.filadelfiastore.model.enums.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -18,4 +21,14 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByUserId(@Param("userId") Long userId);    
     void deleteByOrder(Order order);    
     void deleteByOrderId(Long orderId);
+
+    // Units sold per product as [productId, quantity] rows, for popularity ranking
+    @Query("SELECT oi.product.id, SUM(oi.quantity) FROM OrderItem oi WHERE oi.order.status <> :excludedStatus GROUP BY oi.product.id")
+    List<Object[]> sumQuantityByProduct(@Param("excludedStatus") OrderStatus excludedStatus);
+
+    // Lines of a page of orders in one query, for the order summaries
+    @Query("SELECT new com.filadelfia.store.filadelfiastore.model.dto.OrderItemDTO(" +
+           "oi.id, oi.order.id, p.id, p.name, oi.quantity, oi.unitPrice, oi.subtotal) " +
+           "FROM OrderItem oi JOIN oi.product p WHERE oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemDTO> findLinesByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
 }
@@ -1,5 +1,6 @@
 package com.filadelfia.store.filadelfiastore.repository;
 
+import com.filadelfia.store.filadelfiastore.model.dto.OrderDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.Order;
 import com.filadelfia.store.filadelfiastore.model.entity.User;
 import com.filadelfia.store.filadelfiastore.model.enums.OrderStatus;
@@ -18,6 +19,12 @@ import java.util.Optional;
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
     
+    // Constructor expression for order listings: one row per order with its
+    // customer joined in, skipping managed entities, the lazy User and the mapper
+    String ORDER_SUMMARY = "new com.filadelfia.store.filadelfiastore.model.dto.OrderDTO(" +
+        "o.id, o.orderNumber, u.id, u.name, u.email, o.subtotal, o.shippingCost, o.total, o.status, " +
+        "o.paymentMethod, o.paymentConfirmed, o.trackingCode, o.createdAt, o.updatedAt, o.shippedAt, o.deliveredAt)";
+    
     // Find orders by user
     List<Order> findByUserOrderByCreatedAtDesc(User user);    
     // Find orders by user ID
@@ -41,8 +48,12 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.createdAt BETWEEN :startDate AND :endDate ORDER BY o.createdAt DESC")
     List<Order> findOrdersByDateRange(@Param("startDate") java.sql.Date startDate, @Param("endDate") java.sql.Date endDate);    
     // Additional methods needed by OrderServiceImpl
-    @Query("SELECT o FROM Order o LEFT JOIN FETCH o.items WHERE o.id = :id")
+    // The whole detail view in one query: customer, lines and their products
+    @Query("SELECT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.items i LEFT JOIN FETCH i.product WHERE o.id = :id")
     Optional<Order> findByIdWithItems(@Param("id") Long id);    
+    // Orders still waiting for their first confirmed payment, placed before the cutoff day
+    @Query("SELECT o FROM Order o WHERE o.status = 'PENDING' AND o.paymentConfirmed = false AND o.createdAt < :cutoff")
+    List<Order> findUnpaidPendingCreatedBefore(@Param("cutoff") java.sql.Date cutoff);
     @Query("SELECT o FROM Order o ORDER BY o.createdAt DESC")
     List<Order> findAllOrderByCreatedAtDesc();    
     @Query("SELECT o FROM Order o WHERE o.user.id = :userId")
@@ -61,4 +72,23 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     BigDecimal getRevenueFromDate(@Param("fromDate") java.sql.Date fromDate);    
     @Query("SELECT SUM(o.total) FROM Order o WHERE o.status IN ('DELIVERED', 'CONFIRMED') AND o.createdAt = :date")
     BigDecimal getSalesFromDate(@Param("date") java.sql.Date date);
+
+    // Order summaries for list views; their lines are loaded for the whole page at once
+    @Query(value = "SELECT " + ORDER_SUMMARY + " FROM Order o JOIN o.user u",
+           countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<OrderDTO> findSummaries(Pageable pageable);
+    @Query("SELECT " + ORDER_SUMMARY + " FROM Order o JOIN o.user u ORDER BY o.createdAt DESC")
+    List<OrderDTO> findSummariesOrderByCreatedAtDesc();
+    @Query(value = "SELECT " + ORDER_SUMMARY + " FROM Order o JOIN o.user u WHERE u.id = :userId",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderDTO> findSummariesByUserId(@Param("userId") Long userId, Pageable pageable);
+    @Query("SELECT " + ORDER_SUMMARY + " FROM Order o JOIN o.user u WHERE u.id = :userId ORDER BY o.createdAt DESC")
+    List<OrderDTO> findSummariesByUserIdOrderByCreatedAtDesc(@Param("userId") Long userId);
+    @Query(value = "SELECT " + ORDER_SUMMARY + " FROM Order o JOIN o.user u WHERE o.status = :status",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.status = :status")
+    Page<OrderDTO> findSummariesByStatus(@Param("status") OrderStatus status, Pageable pageable);
+    @Query("SELECT " + ORDER_SUMMARY + " FROM Order o JOIN o.user u WHERE o.status = :status")
+    List<OrderDTO> findSummariesByStatus(@Param("status") OrderStatus status);
+    @Query("SELECT " + ORDER_SUMMARY + " FROM Order o JOIN o.user u WHERE o.createdAt >= :fromDate ORDER BY o.createdAt DESC")
+    List<OrderDTO> findRecentSummaries(@Param("fromDate") java.sql.Date fromDate);
 }
@@ -1,31 +1,65 @@
 package com.filadelfia.store.filadelfiastore.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.repository.query.Param;
 
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryProductCountsDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.Product;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
+
+    // Constructor expressions for read-only listings: rows map straight to DTOs,
+    // skipping managed entities, the Category fetch and the mapper
+    String PRODUCT_DTO = "new com.filadelfia.store.filadelfiastore.model.dto.ProductDTO(" +
+        "p.id, p.createdAt, p.updatedAt, p.name, ";
+    String PRODUCT_DTO_TAIL = ", p.price, p.stock, p.imageUrl, c.id, c.name, p.active, p.featured)";
+    // Listing cards and tables show at most a teaser of the TEXT description
+    String SUMMARY = PRODUCT_DTO + "SUBSTRING(p.description, 1, 160)" + PRODUCT_DTO_TAIL;
+    String DETAIL = PRODUCT_DTO + "p.description" + PRODUCT_DTO_TAIL;
     
     List<Product> findByActiveTrue();
     List<Product> findByNameContainingIgnoreCaseAndActiveTrue(String name);
     @NonNull Optional<Product> findById(@NonNull Long id);
-    List<Product> findByCategoryNameAndActiveTrue(String categoryName);
-    List<Product> findTop4ByActiveTrueOrderByIdDesc();
+    @Query("SELECT " + SUMMARY + " FROM Product p JOIN p.category c WHERE p.active = true AND c.name = :categoryName")
+    List<ProductDTO> findActiveSummariesByCategoryName(@Param("categoryName") String categoryName);
+    @Query("SELECT " + SUMMARY + " FROM Product p LEFT JOIN p.category c")
+    List<ProductDTO> findAllSummaries();
+    @Query(value = "SELECT " + DETAIL + " FROM Product p LEFT JOIN p.category c",
+           countQuery = "SELECT COUNT(p) FROM Product p")
+    Page<ProductDTO> findAllDetails(Pageable pageable);
+    @Query("SELECT " + DETAIL + " FROM Product p LEFT JOIN p.category c WHERE p.active = true")
+    List<ProductDTO> findActiveDetails();
+    @Query("SELECT " + SUMMARY + " FROM Product p LEFT JOIN p.category c WHERE p.active = true")
+    List<ProductDTO> findActiveSummaries();
+    @Query("SELECT " + SUMMARY + " FROM Product p LEFT JOIN p.category c WHERE p.active = true AND p.id IN :ids")
+    List<ProductDTO> findActiveSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    @Query("SELECT " + DETAIL + " FROM Product p LEFT JOIN p.category c WHERE p.active = true AND p.id IN :ids")
+    List<ProductDTO> findActiveDetailsByIdIn(@Param("ids") Collection<Long> ids);
+    @Query("SELECT " + DETAIL + " FROM Product p LEFT JOIN p.category c WHERE p.id IN :ids")
+    List<ProductDTO> findDetailsByIdIn(@Param("ids") Collection<Long> ids);
     
     // Featured products queries
-    List<Product> findByActiveTrueAndFeaturedTrueOrderByUpdatedAtDesc();
+    @Query("SELECT " + SUMMARY + " FROM Product p LEFT JOIN p.category c " +
+           "WHERE p.active = true AND p.featured = true ORDER BY p.updatedAt DESC")
+    List<ProductDTO> findFeaturedSummaries();
+    @Query("SELECT " + SUMMARY + " FROM Product p LEFT JOIN p.category c WHERE p.active = true ORDER BY p.id DESC")
+    List<ProductDTO> findNewestSummaries(Pageable limit);
     List<Product> findByFeaturedTrue();
     
     // Stock management queries
-    List<Product> findByActiveTrueAndStockLessThan(Integer threshold);
+    @Query("SELECT " + SUMMARY + " FROM Product p LEFT JOIN p.category c WHERE p.active = true AND p.stock < :threshold")
+    List<ProductDTO> findActiveSummariesWithStockBelow(@Param("threshold") Integer threshold);
     Long countByActiveTrueAndStockLessThan(Integer threshold);
 
     // Enhanced search queries
@@ -33,4 +67,54 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
            "(LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
            "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
     List<Product> findByNameOrDescriptionContainingIgnoreCaseAndActiveTrue(@Param("searchTerm") String searchTerm);
+
+    @Query("SELECT p FROM Product p WHERE p.active = true AND " +
+           "(LOWER(p.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
+           "LOWER(p.description) LIKE LOWER(CONCAT('%', :searchTerm, '%'))) ORDER BY p.id")
+    List<Product> findByNameOrDescriptionContainingIgnoreCaseAndActiveTrue(@Param("searchTerm") String searchTerm, Pageable limit);
+
+    // Keyset (seek) pagination over a category subtree ordered by (name, id).
+    // pathPrefix is the category path plus '%', e.g. "/1/5/%", an index prefix match;
+    // pass PageRequest.of(0, size) as the limit
+    @Query("SELECT " + SUMMARY + " FROM Product p JOIN p.category c WHERE p.active = true AND c.path LIKE :pathPrefix " +
+           "ORDER BY p.name ASC, p.id ASC")
+    List<ProductDTO> findActiveByCategoryPathFirstPage(@Param("pathPrefix") String pathPrefix, Pageable limit);
+    @Query("SELECT " + SUMMARY + " FROM Product p JOIN p.category c WHERE p.active = true AND c.path LIKE :pathPrefix AND " +
+           "(p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) " +
+           "ORDER BY p.name ASC, p.id ASC")
+    List<ProductDTO> findActiveByCategoryPathAfter(@Param("pathPrefix") String pathPrefix,
+                                                @Param("afterName") String afterName,
+                                                @Param("afterId") Long afterId,
+                                                Pageable limit);
+
+    // Same seek by category id, for related products
+    @Query("SELECT " + SUMMARY + " FROM Product p JOIN p.category c WHERE p.active = true AND c.id = :categoryId " +
+           "ORDER BY p.name ASC, p.id ASC")
+    List<ProductDTO> findActiveByCategoryIdFirstPage(@Param("categoryId") Long categoryId, Pageable limit);
+    @Query("SELECT " + SUMMARY + " FROM Product p JOIN p.category c WHERE p.active = true AND c.id = :categoryId AND " +
+           "(p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) " +
+           "ORDER BY p.name ASC, p.id ASC")
+    List<ProductDTO> findActiveByCategoryIdAfter(@Param("categoryId") Long categoryId,
+                                              @Param("afterName") String afterName,
+                                              @Param("afterId") Long afterId,
+                                              Pageable limit);
+
+    // Category detail: every product, active or not, in (name, id) order
+    @Query("SELECT " + SUMMARY + " FROM Product p JOIN p.category c WHERE c.id = :categoryId " +
+           "ORDER BY p.name ASC, p.id ASC")
+    List<ProductDTO> findByCategoryIdFirstPage(@Param("categoryId") Long categoryId, Pageable limit);
+    @Query("SELECT " + SUMMARY + " FROM Product p JOIN p.category c WHERE c.id = :categoryId AND " +
+           "(p.name > :afterName OR (p.name = :afterName AND p.id > :afterId)) " +
+           "ORDER BY p.name ASC, p.id ASC")
+    List<ProductDTO> findByCategoryIdAfter(@Param("categoryId") Long categoryId,
+                                        @Param("afterName") String afterName,
+                                        @Param("afterId") Long afterId,
+                                        Pageable limit);
+    @Query("SELECT new com.filadelfia.store.filadelfiastore.model.dto.CategoryProductCountsDTO(" +
+           "COUNT(p), " +
+           "COALESCE(SUM(CASE WHEN p.active = true THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN p.active = true AND p.stock < :lowStockThreshold THEN 1 ELSE 0 END), 0)) " +
+           "FROM Product p WHERE p.category.id = :categoryId")
+    CategoryProductCountsDTO countByCategoryId(@Param("categoryId") Long categoryId,
+                                               @Param("lowStockThreshold") Integer lowStockThreshold);
 }
\ No newline at end of file
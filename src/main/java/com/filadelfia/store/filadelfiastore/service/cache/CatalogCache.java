@@ -0,0 +1,76 @@
+package com.filadelfia.store.filadelfiastore.service.cache;
+
+import com.filadelfia.store.filadelfiastore.event.CategoryChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductsImportedEvent;
+import com.filadelfia.store.filadelfiastore.event.StockChangedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.util.BoundedTtlCache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache for the anonymous catalog reads (shop and product
+ * detail pages). Entries are bounded by size and TTL and are invalidated
+ * after the commit of the write that made them stale.
+ */
+@Component
+public class CatalogCache {
+
+    private static final String ALL_CATEGORIES = "all";
+
+    private final BoundedTtlCache<Long, Optional<ProductDTO>> products;
+    private final BoundedTtlCache<String, List<CategoryDTO>> categoryLists;
+
+    public CatalogCache(@Value("${app.cache.catalog.max-products:2000}") int maxProducts,
+                        @Value("${app.cache.catalog.ttl-seconds:600}") long ttlSeconds) {
+        long ttlMillis = ttlSeconds * 1000;
+        this.products = new BoundedTtlCache<>("catalog.products", maxProducts, ttlMillis);
+        this.categoryLists = new BoundedTtlCache<>("catalog.categories", 4, ttlMillis);
+    }
+
+    public Optional<ProductDTO> getProduct(Long id, Function<Long, Optional<ProductDTO>> loader) {
+        return products.get(id, loader);
+    }
+
+    public List<CategoryDTO> getAllCategories(Supplier<List<CategoryDTO>> loader) {
+        return categoryLists.get(ALL_CATEGORIES, key -> List.copyOf(loader.get()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        products.invalidate(event.getProduct().getId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        event.getProducts().forEach(product -> products.invalidate(product.getId()));
+    }
+
+    @EventListener
+    public void onProductsImported(ProductsImportedEvent event) {
+        // Drops cached misses for ids the import has just created
+        products.invalidateAll();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        categoryLists.invalidateAll();
+        // Product DTOs carry the category name, so a rename makes them stale too
+        products.invalidateAll();
+    }
+
+    public List<Map<String, Object>> stats() {
+        return List.of(products.stats(), categoryLists.stats());
+    }
+}
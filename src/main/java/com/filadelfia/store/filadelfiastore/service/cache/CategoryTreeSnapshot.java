@@ -0,0 +1,214 @@
+package com.filadelfia.store.filadelfiastore.service.cache;
+
+import com.filadelfia.store.filadelfiastore.event.CategoryChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.StockChangedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryNodeDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.Category;
+import com.filadelfia.store.filadelfiastore.repository.CategoryRepository;
+import com.filadelfia.store.filadelfiastore.util.SearchTextNormalizer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Immutable navigation tree of the active categories for the shop.
+ *
+ * Built once from the materialized paths and swapped in whole after a
+ * category or product change, so shop requests never query categories. A
+ * category whose parent is inactive is hidden together with its subtree.
+ * Product counts come from the categories' maintained counters and are
+ * summed up the tree.
+ */
+@Component
+public class CategoryTreeSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryTreeSnapshot.class);
+
+    private static final Comparator<CategoryNodeDTO> BY_NAME =
+        Comparator.comparing((CategoryNodeDTO node) -> SearchTextNormalizer.fold(node.getName()))
+            .thenComparing(CategoryNodeDTO::getId);
+
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "category-tree");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+
+    private volatile Tree tree;
+
+    public CategoryTreeSnapshot(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Every visible category in depth-first order, parents before children.
+     */
+    public List<CategoryNodeDTO> flattened() {
+        return current().flattened;
+    }
+
+    public List<CategoryNodeDTO> roots() {
+        return current().roots;
+    }
+
+    public Optional<CategoryNodeDTO> findByName(String name) {
+        return Optional.ofNullable(current().byName.get(name));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        // Product writes move the category counters
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        if (event.isInStockCountsChanged()) {
+            scheduleRebuild();
+        }
+    }
+
+    public void refresh() {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    private Tree current() {
+        Tree current = tree;
+        if (current == null) {
+            // Only before the startup build has finished
+            current = rebuild();
+        }
+        return current;
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to rebuild category tree", e);
+                }
+            });
+        }
+    }
+
+    private Tree rebuild() {
+        Tree rebuilt = readOnlyTransaction.execute(status -> build(categoryRepository.findByActiveTrue()));
+        tree = rebuilt;
+        logger.debug("Category tree rebuilt with {} categories", rebuilt.flattened.size());
+        return rebuilt;
+    }
+
+    private static Tree build(List<Category> categories) {
+        // Shallow paths first, so a parent is always placed before its children
+        List<Category> ordered = new ArrayList<>(categories);
+        ordered.removeIf(category -> category.getPath() == null);
+        ordered.sort(Comparator.comparingInt(category -> depthOf(category.getPath())));
+
+        Map<Long, CategoryNodeDTO> nodes = new HashMap<>();
+        List<CategoryNodeDTO> roots = new ArrayList<>();
+        for (Category category : ordered) {
+            int depth = depthOf(category.getPath());
+            CategoryNodeDTO parent = depth == 0 ? null : nodes.get(parentIdOf(category.getPath()));
+            if (depth > 0 && parent == null) {
+                continue; // under an inactive ancestor
+            }
+            String fullName = parent == null ? category.getName() : parent.getFullName() + " > " + category.getName();
+            CategoryNodeDTO node = new CategoryNodeDTO(category.getId(), category.getName(), category.getPath(),
+                depth, fullName, category.getActiveProductCount(), category.getInStockCount(), new ArrayList<>());
+            nodes.put(node.getId(), node);
+            (parent == null ? roots : parent.getChildren()).add(node);
+        }
+
+        List<CategoryNodeDTO> flattened = new ArrayList<>();
+        roots.sort(BY_NAME);
+        for (CategoryNodeDTO root : roots) {
+            sortAndFlatten(root, flattened);
+        }
+        Map<String, CategoryNodeDTO> byName = new HashMap<>();
+        flattened.forEach(node -> byName.put(node.getName(), node));
+        return new Tree(List.copyOf(roots), List.copyOf(flattened), Map.copyOf(byName));
+    }
+
+    private static void sortAndFlatten(CategoryNodeDTO node, List<CategoryNodeDTO> flattened) {
+        flattened.add(node);
+        node.getChildren().sort(BY_NAME);
+        for (CategoryNodeDTO child : node.getChildren()) {
+            sortAndFlatten(child, flattened);
+            node.setProductCount(node.getProductCount() + child.getProductCount());
+            node.setInStockCount(node.getInStockCount() + child.getInStockCount());
+        }
+        node.setChildren(List.copyOf(node.getChildren()));
+    }
+
+    // "/1/5/12/" has depth 2
+    private static int depthOf(String path) {
+        int separators = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/') {
+                separators++;
+            }
+        }
+        return Math.max(separators - 2, 0);
+    }
+
+    private static Long parentIdOf(String path) {
+        int end = path.lastIndexOf('/', path.length() - 2);
+        int start = path.lastIndexOf('/', end - 1);
+        return Long.valueOf(path.substring(start + 1, end));
+    }
+
+    private static final class Tree {
+        private final List<CategoryNodeDTO> roots;
+        private final List<CategoryNodeDTO> flattened;
+        private final Map<String, CategoryNodeDTO> byName;
+
+        private Tree(List<CategoryNodeDTO> roots, List<CategoryNodeDTO> flattened, Map<String, CategoryNodeDTO> byName) {
+            this.roots = roots;
+            this.flattened = flattened;
+            this.byName = byName;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.filadelfia.store.filadelfiastore.service.cache;
+
+import com.filadelfia.store.filadelfiastore.event.CategoryChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductsImportedEvent;
+import com.filadelfia.store.filadelfiastore.event.StockChangedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Immutable, pre-mapped snapshot of the featured shelf shown on the home and
+ * shop pages.
+ *
+ * Readers only dereference a volatile list, so a page view never touches JPA.
+ * The list is rebuilt on a background thread at startup and whenever a
+ * product, stock or category change can alter what the shelf shows, then
+ * swapped in whole.
+ */
+@Component
+public class FeaturedProductsSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(FeaturedProductsSnapshot.class);
+
+    private static final int FALLBACK_SIZE = 4;
+
+    private final ProductRepository productRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "featured-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+
+    private volatile Shelf shelf;
+
+    public FeaturedProductsSnapshot(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public List<ProductDTO> get() {
+        Shelf current = shelf;
+        if (current == null) {
+            // Only before the startup build has finished
+            current = rebuild();
+        }
+        return current.products;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void onCatalogReloaded() {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        if (affectsShelf(event.getProduct())) {
+            scheduleRebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        // Stock never moves a product on or off the shelf, it only changes a shown card
+        if (event.getProducts().stream().anyMatch(this::showsOtherStock)) {
+            scheduleRebuild();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        // Shown cards carry their category's name
+        Shelf current = shelf;
+        Long categoryId = event.getCategory().getId();
+        if (current == null || current.products.stream().anyMatch(product -> Objects.equals(product.getCategoryId(), categoryId))) {
+            scheduleRebuild();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Coalesces bursts of changes (bulk edits, imports) into a single rebuild.
+     */
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to rebuild featured products snapshot", e);
+                }
+            });
+        }
+    }
+
+    private Shelf rebuild() {
+        Shelf rebuilt = readOnlyTransaction.execute(status -> {
+            List<ProductDTO> featuredProducts = productRepository.findFeaturedSummaries();
+
+            // If no featured products exist, fallback to latest products
+            boolean fallback = featuredProducts.isEmpty();
+            if (fallback) {
+                featuredProducts = productRepository.findNewestSummaries(PageRequest.of(0, FALLBACK_SIZE));
+            }
+
+            return new Shelf(List.copyOf(featuredProducts), fallback);
+        });
+        shelf = rebuilt;
+        logger.debug("Featured products snapshot rebuilt with {} products", rebuilt.products.size());
+        return rebuilt;
+    }
+
+    private boolean affectsShelf(ProductDTO changed) {
+        Shelf current = shelf;
+        if (current == null) {
+            return true;
+        }
+
+        Optional<ProductDTO> shown = current.products.stream()
+            .filter(product -> product.getId().equals(changed.getId()))
+            .findFirst();
+        if (shown.isPresent()) {
+            ProductDTO before = shown.get();
+            return !Objects.equals(before.getFeatured(), changed.getFeatured())
+                || !Objects.equals(before.getActive(), changed.getActive())
+                || !Objects.equals(before.getPrice(), changed.getPrice())
+                || !Objects.equals(before.getImageUrl(), changed.getImageUrl())
+                || !Objects.equals(before.getName(), changed.getName())
+                || !Objects.equals(before.getStock(), changed.getStock())
+                || !Objects.equals(before.getCategoryId(), changed.getCategoryId());
+        }
+
+        // A product not on the shelf can only join it by being active, and
+        // either featured or newer than the fallback shelf
+        return Boolean.TRUE.equals(changed.getActive())
+            && (Boolean.TRUE.equals(changed.getFeatured()) || current.fallback);
+    }
+
+    private boolean showsOtherStock(ProductDTO changed) {
+        Shelf current = shelf;
+        if (current == null) {
+            return true;
+        }
+        return current.products.stream()
+            .anyMatch(product -> product.getId().equals(changed.getId())
+                && !Objects.equals(product.getStock(), changed.getStock()));
+    }
+
+    private static final class Shelf {
+        private final List<ProductDTO> products;
+        private final boolean fallback;
+
+        private Shelf(List<ProductDTO> products, boolean fallback) {
+            this.products = products;
+            this.fallback = fallback;
+        }
+    }
+}
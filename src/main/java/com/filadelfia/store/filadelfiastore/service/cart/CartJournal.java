@@ -0,0 +1,203 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of cart mutations not yet written to the database.
+ *
+ * Records hold absolute values ("product X now has quantity N", "cart
+ * cleared"), so replaying a record twice is harmless. The active segment is
+ * sealed at the start of every flush cycle and sealed segments are deleted
+ * once a cycle has persisted every cart, which keeps the log short while
+ * never dropping a mutation the database has not seen.
+ */
+final class CartJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartJournal.class);
+
+    private static final String ACTIVE = "cart-journal.log";
+    private static final String SEALED_PREFIX = "cart-journal-";
+    private static final String SET = "S";
+    private static final String CLEAR = "C";
+
+    private final Path directory;
+    private final boolean fsync;
+    private final List<Path> sealed = new ArrayList<>();
+
+    private FileChannel channel;
+    private long sequence;
+
+    CartJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    synchronized void appendSet(Long userId, Long productId, int quantity, BigDecimal unitPrice) {
+        append(SET + ' ' + userId + ' ' + productId + ' ' + quantity + ' ' + unitPrice.toPlainString() + '\n');
+    }
+
+    synchronized void appendClear(Long userId) {
+        append(CLEAR + ' ' + userId + '\n');
+    }
+
+    /**
+     * Records the whole cart as it now stands: a clear followed by every
+     * line, written in one append so a replay never sees only the clear.
+     */
+    synchronized void appendReplace(Long userId, Collection<CartLine> lines) {
+        StringBuilder records = new StringBuilder().append(CLEAR).append(' ').append(userId).append('\n');
+        for (CartLine line : lines) {
+            records.append(SET).append(' ').append(userId).append(' ').append(line.getProductId()).append(' ')
+                .append(line.getQuantity()).append(' ').append(line.getUnitPrice().toPlainString()).append('\n');
+        }
+        append(records.toString());
+    }
+
+    /**
+     * Starts a new segment; everything appended before this call is covered
+     * by the flush cycle that follows.
+     */
+    synchronized void seal() {
+        try {
+            if (channel == null || channel.size() == 0) {
+                return;
+            }
+            channel.close();
+            channel = null;
+            Path target = directory.resolve(SEALED_PREFIX + System.currentTimeMillis() + "-" + (sequence++) + ".log");
+            Files.move(directory.resolve(ACTIVE), target);
+            sealed.add(target);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not seal the cart journal", e);
+        }
+    }
+
+    /**
+     * Drops the segments sealed so far, once their carts are all persisted.
+     */
+    synchronized void discardSealed() {
+        for (Path segment : sealed) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                logger.warn("Could not delete cart journal segment {}", segment, e);
+                return;
+            }
+        }
+        sealed.clear();
+    }
+
+    /**
+     * Folds every leftover segment into the final state per user, oldest
+     * first. A user mapped to a {@link Replay} with cleared set had the cart
+     * emptied before the overrides were applied.
+     */
+    synchronized Map<Long, Replay> recover() {
+        Map<Long, Replay> replays = new LinkedHashMap<>();
+        try {
+            Files.createDirectories(directory);
+            List<Path> segments;
+            try (Stream<Path> files = Files.list(directory)) {
+                segments = new ArrayList<>(files
+                    .filter(path -> path.getFileName().toString().startsWith(SEALED_PREFIX))
+                    .sorted()
+                    .toList());
+            }
+            if (Files.exists(directory.resolve(ACTIVE))) {
+                segments.add(directory.resolve(ACTIVE));
+            }
+            for (Path segment : segments) {
+                for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+                    apply(replays, line);
+                }
+            }
+            sealed.addAll(segments.stream().filter(path -> !path.endsWith(ACTIVE)).toList());
+            if (segments.contains(directory.resolve(ACTIVE))) {
+                seal();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read the cart journal in " + directory, e);
+        }
+        return replays;
+    }
+
+    synchronized void close() {
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            logger.warn("Could not close the cart journal", e);
+        }
+    }
+
+    private void append(String record) {
+        try {
+            if (channel == null) {
+                Files.createDirectories(directory);
+                channel = FileChannel.open(directory.resolve(ACTIVE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the cart journal", e);
+        }
+    }
+
+    private static void apply(Map<Long, Replay> replays, String line) {
+        String[] fields = line.trim().split(" ");
+        try {
+            if (fields.length == 2 && CLEAR.equals(fields[0])) {
+                Replay replay = replays.computeIfAbsent(Long.valueOf(fields[1]), id -> new Replay());
+                replay.cleared = true;
+                replay.overrides.clear();
+            } else if (fields.length == 5 && SET.equals(fields[0])) {
+                Long productId = Long.valueOf(fields[2]);
+                replays.computeIfAbsent(Long.valueOf(fields[1]), id -> new Replay()).overrides
+                    .put(productId, new CartLine(productId, Integer.parseInt(fields[3]), new BigDecimal(fields[4])));
+            } else if (!line.isBlank()) {
+                logger.warn("Skipping malformed cart journal record: {}", line);
+            }
+        } catch (NumberFormatException e) {
+            // A torn last record from a crash mid-write
+            logger.warn("Skipping malformed cart journal record: {}", line);
+        }
+    }
+
+    static final class Replay {
+        private boolean cleared;
+        private final Map<Long, CartLine> overrides = new LinkedHashMap<>();
+
+        boolean isCleared() {
+            return cleared;
+        }
+
+        Map<Long, CartLine> getOverrides() {
+            return overrides;
+        }
+    }
+}
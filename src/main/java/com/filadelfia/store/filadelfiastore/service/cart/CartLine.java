@@ -0,0 +1,32 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import java.math.BigDecimal;
+
+/**
+ * Quantity and price of one product in a cart, as persisted by the write-behind
+ * engine. A quantity of zero marks a removal when applied as an override.
+ */
+final class CartLine {
+
+    private final Long productId;
+    private final int quantity;
+    private final BigDecimal unitPrice;
+
+    CartLine(Long productId, int quantity, BigDecimal unitPrice) {
+        this.productId = productId;
+        this.quantity = quantity;
+        this.unitPrice = unitPrice;
+    }
+
+    Long getProductId() {
+        return productId;
+    }
+
+    int getQuantity() {
+        return quantity;
+    }
+
+    BigDecimal getUnitPrice() {
+        return unitPrice;
+    }
+}
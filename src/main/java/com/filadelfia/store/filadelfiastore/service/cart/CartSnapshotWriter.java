@@ -0,0 +1,78 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import com.filadelfia.store.filadelfiastore.model.entity.Cart;
+import com.filadelfia.store.filadelfiastore.model.entity.CartItem;
+import com.filadelfia.store.filadelfiastore.repository.CartRepository;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Persists the in-memory state of one cart in a single transaction, however
+ * many clicks it coalesces.
+ */
+@Component
+@ConditionalOnProperty(name = "app.cart.write-behind.enabled", havingValue = "true")
+public class CartSnapshotWriter {
+
+    private final CartRepository cartRepository;
+    private final UserRepository userRepository;
+    private final ProductRepository productRepository;
+
+    public CartSnapshotWriter(CartRepository cartRepository, UserRepository userRepository,
+                              ProductRepository productRepository) {
+        this.cartRepository = cartRepository;
+        this.userRepository = userRepository;
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Applies the lines to the user's cart. With replaceAll, items missing
+     * from the lines are removed; otherwise only the given products change
+     * and a zero quantity removes one.
+     *
+     * Runs in its own transaction so a flush requested during checkout stays
+     * persisted even if the order is rolled back.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void write(Long userId, Collection<CartLine> lines, boolean replaceAll) {
+        Cart cart = cartRepository.findByUserIdWithItems(userId)
+            .orElseGet(() -> cartRepository.save(new Cart(userRepository.getReferenceById(userId))));
+
+        if (replaceAll) {
+            for (CartItem item : new ArrayList<>(cart.getItems())) {
+                boolean kept = lines.stream().anyMatch(line -> line.getProductId().equals(item.getProduct().getId()));
+                if (!kept) {
+                    cart.removeItem(item);
+                }
+            }
+        }
+
+        for (CartLine line : lines) {
+            CartItem item = cart.findItemByProductId(line.getProductId());
+            if (line.getQuantity() <= 0) {
+                if (item != null) {
+                    cart.removeItem(item);
+                }
+            } else if (item == null) {
+                cart.addItem(new CartItem(cart, productRepository.getReferenceById(line.getProductId()),
+                    line.getQuantity(), line.getUnitPrice()));
+            } else if (item.getQuantity() != line.getQuantity() || item.getUnitPrice().compareTo(line.getUnitPrice()) != 0) {
+                item.setUnitPrice(line.getUnitPrice());
+                item.setQuantity(line.getQuantity());
+            }
+        }
+
+        cart.calculateTotal();
+        cart.setUpdatedAt(new Date(System.currentTimeMillis()));
+        cartRepository.save(cart);
+    }
+}
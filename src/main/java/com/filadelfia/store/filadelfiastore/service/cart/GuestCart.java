@@ -0,0 +1,112 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import jakarta.servlet.http.HttpSession;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cart of an anonymous visitor, kept in the HTTP session as product id to
+ * quantity only. Nothing is written to the database until the visitor logs
+ * in and the lines are merged into the persisted cart.
+ */
+public final class GuestCart implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String SESSION_ATTRIBUTE = "guestCart";
+
+    // Bounds what a single session can hold
+    private static final int MAX_LINES = 50;
+    private static final int MAX_QUANTITY = 999;
+
+    private final LinkedHashMap<Long, Integer> quantities = new LinkedHashMap<>();
+
+    /**
+     * The visitor's guest cart, or null when the session has none.
+     */
+    public static GuestCart from(HttpSession session) {
+        if (session == null) {
+            return null;
+        }
+        return (GuestCart) session.getAttribute(SESSION_ATTRIBUTE);
+    }
+
+    public static GuestCart getOrCreate(HttpSession session) {
+        GuestCart cart = from(session);
+        if (cart == null) {
+            cart = new GuestCart();
+            session.setAttribute(SESSION_ATTRIBUTE, cart);
+        }
+        return cart;
+    }
+
+    public static Map<Long, Integer> quantitiesOf(HttpSession session) {
+        GuestCart cart = from(session);
+        return cart == null ? Map.of() : cart.getQuantities();
+    }
+
+    public synchronized void add(Long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        if (!quantities.containsKey(productId) && quantities.size() >= MAX_LINES) {
+            throw new IllegalArgumentException("Cart cannot hold more than " + MAX_LINES + " products");
+        }
+        quantities.merge(productId, quantity, (current, added) -> Math.min(current + added, MAX_QUANTITY));
+    }
+
+    /**
+     * Sets the quantity of a product already in the cart; zero or less removes it.
+     */
+    public synchronized void update(Long productId, int quantity) {
+        if (!quantities.containsKey(productId)) {
+            throw new IllegalArgumentException("Cart item not found");
+        }
+        if (quantity <= 0) {
+            quantities.remove(productId);
+        } else {
+            quantities.put(productId, Math.min(quantity, MAX_QUANTITY));
+        }
+    }
+
+    /**
+     * Applies several absolute quantities at once; zero or less removes the
+     * product, an unknown one is added.
+     */
+    public synchronized void updateAll(Map<Long, Integer> changes) {
+        long added = changes.entrySet().stream()
+            .filter(change -> change.getValue() > 0 && !quantities.containsKey(change.getKey()))
+            .count();
+        if (quantities.size() + added > MAX_LINES) {
+            throw new IllegalArgumentException("Cart cannot hold more than " + MAX_LINES + " products");
+        }
+        changes.forEach((productId, quantity) -> {
+            if (quantity <= 0) {
+                quantities.remove(productId);
+            } else {
+                quantities.put(productId, Math.min(quantity, MAX_QUANTITY));
+            }
+        });
+    }
+
+    public synchronized void remove(Long productId) {
+        if (quantities.remove(productId) == null) {
+            throw new IllegalArgumentException("Cart item not found");
+        }
+    }
+
+    public synchronized void clear() {
+        quantities.clear();
+    }
+
+    public synchronized boolean isEmpty() {
+        return quantities.isEmpty();
+    }
+
+    public synchronized Map<Long, Integer> getQuantities() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(quantities));
+    }
+}
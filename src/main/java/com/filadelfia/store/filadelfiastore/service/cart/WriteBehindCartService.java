@@ -0,0 +1,584 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import com.filadelfia.store.filadelfiastore.exception.custom.ResourceNotFoundException;
+import com.filadelfia.store.filadelfiastore.model.dto.CartDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemUpdateDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutValidationDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.Cart;
+import com.filadelfia.store.filadelfiastore.service.implementation.CartServiceImpl;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Cart engine that keeps active carts in memory and writes them behind.
+ *
+ * Clicks mutate the user's in-memory cart and append one record to the
+ * {@link CartJournal}; a background flusher then persists each changed cart
+ * in a single transaction every flush interval. Checkout reads flush the
+ * cart first, the journal is replayed into the database on startup, so no
+ * acknowledged click is lost to a crash, and the shutdown hook flushes
+ * everything. Carts are kept in LRU order and clean ones are evicted past
+ * max-carts; dirty carts stay until flushed.
+ *
+ * Enabled with app.cart.write-behind.enabled=true; otherwise
+ * {@link CartServiceImpl} serves every call directly.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "app.cart.write-behind.enabled", havingValue = "true")
+public class WriteBehindCartService implements CartService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCartService.class);
+
+    private final CartServiceImpl delegate;
+    private final ProductService productService;
+    private final CartSnapshotWriter writer;
+    private final CartJournal journal;
+    private final long flushIntervalMillis;
+    private final int maxCarts;
+
+    // Access-ordered, so iteration starts at the least recently used cart
+    private final LinkedHashMap<Long, CartState> carts = new LinkedHashMap<>(256, 0.75f, true);
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cart-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    public WriteBehindCartService(CartServiceImpl delegate, ProductService productService, CartSnapshotWriter writer,
+                                  @Value("${app.cart.write-behind.journal-dir:data/cart-journal}") String journalDir,
+                                  @Value("${app.cart.write-behind.journal-fsync:false}") boolean journalFsync,
+                                  @Value("${app.cart.write-behind.flush-interval-ms:2000}") long flushIntervalMillis,
+                                  @Value("${app.cart.write-behind.max-carts:10000}") int maxCarts) {
+        this.delegate = delegate;
+        this.productService = productService;
+        this.writer = writer;
+        this.journal = new CartJournal(Path.of(journalDir), journalFsync);
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.maxCarts = maxCarts;
+    }
+
+    @PostConstruct
+    void start() {
+        Map<Long, CartJournal.Replay> replays = journal.recover();
+        replays.forEach((userId, replay) ->
+            writer.write(userId, replay.getOverrides().values(), replay.isCleared()));
+        journal.discardSealed();
+        if (!replays.isEmpty()) {
+            logger.info("Replayed unflushed cart changes of {} users from the journal", replays.size());
+        }
+        flusher.scheduleWithFixedDelay(this::flushSafely, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushAll();
+        journal.close();
+    }
+
+    @Override
+    public CartDTO getOrCreateCart(Long userId) {
+        return withState(userId, this::toDTO);
+    }
+
+    @Override
+    public CartDTO getCartByUserId(Long userId) {
+        return withState(userId, this::toDTO);
+    }
+
+    /**
+     * Entity view for checkout: the cart is flushed first so the order sees
+     * every click.
+     */
+    @Override
+    public Optional<Cart> findCartByUserId(Long userId) {
+        flush(userId);
+        return delegate.findCartByUserId(userId);
+    }
+
+    @Override
+    public void clearCart(Long userId) {
+        // Flushed and dropped first, so a pending write cannot refill the cart
+        flushAndDiscard(userId);
+        delegate.clearCart(userId);
+        afterCommit(() -> journal.appendClear(userId));
+    }
+
+    @Override
+    public void deleteCart(Long userId) {
+        // Flushed and dropped first, so a pending write cannot refill the cart
+        flushAndDiscard(userId);
+        delegate.deleteCart(userId);
+        afterCommit(() -> journal.appendClear(userId));
+    }
+
+    @Override
+    public CartItemDTO addItemToCart(Long userId, Long productId, Integer quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        ProductDTO product = requireProduct(productId);
+
+        return withState(userId, state -> {
+            CartItemState item = state.items.get(productId);
+            if (item == null) {
+                item = new CartItemState(product, 0, product.getPrice());
+                state.items.put(productId, item);
+            }
+            item.quantity += quantity;
+            return record(userId, state, item);
+        });
+    }
+
+    @Override
+    public CartItemDTO updateCartItemQuantity(Long userId, Long productId, Integer quantity) {
+        if (quantity <= 0) {
+            removeItemFromCart(userId, productId);
+            return null;
+        }
+
+        return withState(userId, state -> {
+            CartItemState item = state.items.get(productId);
+            if (item == null) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            item.quantity = quantity;
+            return record(userId, state, item);
+        });
+    }
+
+    @Override
+    public void removeItemFromCart(Long userId, Long productId) {
+        withState(userId, state -> {
+            CartItemState item = state.items.remove(productId);
+            if (item == null) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            item.quantity = 0;
+            return record(userId, state, item);
+        });
+    }
+
+    /**
+     * Applies the whole batch under one lock of the cart; every line still
+     * gets its own journal record. Products new to the cart are loaded
+     * first in one query, so an unknown id rejects the batch before anything
+     * changes.
+     */
+    @Override
+    public CartDTO updateCartItems(Long userId, List<CartItemUpdateDTO> changes) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemUpdateDTO change : changes) {
+            if (change.getProductId() == null || change.getQuantity() == null) {
+                throw new IllegalArgumentException("Each change needs a product id and a quantity");
+            }
+            quantities.put(change.getProductId(), change.getQuantity());
+        }
+
+        List<Long> newProductIds = withState(userId, state -> quantities.entrySet().stream()
+            .filter(change -> change.getValue() > 0 && !state.items.containsKey(change.getKey()))
+            .map(Map.Entry::getKey)
+            .toList());
+        Map<Long, ProductDTO> newProducts = new HashMap<>(delegate.requireProducts(newProductIds));
+
+        return withState(userId, state -> {
+            for (Map.Entry<Long, Integer> change : quantities.entrySet()) {
+                Long productId = change.getKey();
+                CartItemState item = state.items.get(productId);
+                if (change.getValue() <= 0) {
+                    if (item != null) {
+                        state.items.remove(productId);
+                        item.quantity = 0;
+                        record(userId, state, item);
+                    }
+                    continue;
+                }
+                if (item == null) {
+                    ProductDTO product = newProducts.computeIfAbsent(productId, this::requireProduct);
+                    item = new CartItemState(product, 0, product.getPrice());
+                    state.items.put(productId, item);
+                }
+                item.quantity = change.getValue();
+                record(userId, state, item);
+            }
+            return toDTO(state);
+        });
+    }
+
+    @Override
+    public List<CartItemDTO> getCartItems(Long userId) {
+        return withState(userId, this::toDTO).getItems();
+    }
+
+    @Override
+    public Map<Long, ProductDTO> requireProducts(Collection<Long> productIds) {
+        return delegate.requireProducts(productIds);
+    }
+
+    @Override
+    public CartDTO getGuestCart(Map<Long, Integer> quantities) {
+        return delegate.getGuestCart(quantities);
+    }
+
+    /**
+     * Merges in the database, after the user's pending clicks are written;
+     * the cart is reloaded from there on the next read.
+     */
+    @Override
+    public void mergeGuestCart(Long userId, Map<Long, Integer> quantities) {
+        flushAndDiscard(userId);
+        delegate.mergeGuestCart(userId, quantities);
+        journalReplacement(userId);
+    }
+
+    /**
+     * Repricing rewrites the lines in the database, so the cart is flushed
+     * and dropped first and reloaded from there afterwards.
+     */
+    @Override
+    public CheckoutValidationDTO validateForCheckout(Long userId) {
+        flushAndDiscard(userId);
+        CheckoutValidationDTO validation = delegate.validateForCheckout(userId);
+        journalReplacement(userId);
+        return validation;
+    }
+
+    @Override
+    public Integer getTotalItemsInCart(Long userId) {
+        return withState(userId, state -> state.items.values().stream().mapToInt(item -> item.quantity).sum());
+    }
+
+    @Override
+    public Double getCartTotal(Long userId) {
+        return withState(userId, state -> state.total().doubleValue());
+    }
+
+    @Override
+    public boolean isCartEmpty(Long userId) {
+        return withState(userId, state -> state.items.isEmpty());
+    }
+
+    @Override
+    public boolean hasProductInCart(Long userId, Long productId) {
+        return withState(userId, state -> state.items.containsKey(productId));
+    }
+
+    /**
+     * Journals the item's new absolute quantity, then bumps the cart version
+     * so the flusher picks it up. Called with the cart locked.
+     */
+    private CartItemDTO record(Long userId, CartState state, CartItemState item) {
+        journal.appendSet(userId, item.productId, item.quantity, item.unitPrice);
+        state.version++;
+        state.updatedAt = new Date(System.currentTimeMillis());
+        return item.toDTO(state.cartId);
+    }
+
+    /**
+     * The delegate rewrote the cart in the database, past the lines still in
+     * the journal; journaling its new state keeps a replay after a crash
+     * from bringing the old quantities and prices back.
+     */
+    private void journalReplacement(Long userId) {
+        List<CartLine> lines = delegate.getCartItems(userId).stream()
+            .map(item -> new CartLine(item.getProductId(), item.getQuantity(), item.getUnitPrice()))
+            .toList();
+        afterCommit(() -> journal.appendReplace(userId, lines));
+    }
+
+    private ProductDTO requireProduct(Long productId) {
+        return productService.getProductById(productId)
+            .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
+    }
+
+    /**
+     * Runs the action with the user's cart locked. A clear, merge or eviction
+     * may drop the cart between the lookup and the lock; a change applied to
+     * that orphan would be journaled but never flushed, and then lost with
+     * the journal segment, so the lookup is retried until the locked cart is
+     * still the live one.
+     */
+    private <T> T withState(Long userId, Function<CartState, T> action) {
+        while (true) {
+            CartState state = state(userId);
+            synchronized (state) {
+                if (!state.discarded) {
+                    return action.apply(state);
+                }
+            }
+        }
+    }
+
+    private CartState state(Long userId) {
+        synchronized (carts) {
+            CartState cached = carts.get(userId);
+            if (cached != null && !cached.discarded) {
+                return cached;
+            }
+            if (cached != null) {
+                // Dropped but not unmapped yet; its changes are already written
+                carts.remove(userId);
+            }
+        }
+
+        // Loaded outside the map lock; creates the cart row on first use
+        CartState loaded = new CartState(delegate.getCartByUserId(userId));
+        boolean overflow;
+        synchronized (carts) {
+            CartState raced = carts.putIfAbsent(userId, loaded);
+            if (raced != null) {
+                return raced;
+            }
+            overflow = carts.size() > maxCarts;
+        }
+        if (overflow && flushRequested.compareAndSet(false, true)) {
+            // Dirty carts cannot be evicted, so flush early to free room
+            flusher.execute(this::flushSafely);
+        }
+        return loaded;
+    }
+
+    /**
+     * Writes the cart's pending clicks and drops it in one step under its
+     * lock, so no click lands between the write and the drop; the next access
+     * reloads the cart from the database.
+     */
+    private void flushAndDiscard(Long userId) {
+        CartState state;
+        synchronized (carts) {
+            state = carts.get(userId);
+        }
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            write(userId, state);
+            state.discarded = true;
+        }
+        synchronized (carts) {
+            carts.remove(userId, state);
+        }
+    }
+
+    private void flushSafely() {
+        flushRequested.set(false);
+        try {
+            flushAll();
+        } catch (RuntimeException e) {
+            logger.error("Cart write-behind flush failed", e);
+        }
+    }
+
+    /**
+     * Seals the journal, persists every dirty cart and, when all succeeded,
+     * drops the sealed journal segments.
+     */
+    private void flushAll() {
+        journal.seal();
+        List<Map.Entry<Long, CartState>> snapshot;
+        synchronized (carts) {
+            snapshot = new ArrayList<>(carts.entrySet());
+        }
+
+        boolean allFlushed = true;
+        for (Map.Entry<Long, CartState> entry : snapshot) {
+            try {
+                write(entry.getKey(), entry.getValue());
+            } catch (RuntimeException e) {
+                allFlushed = false;
+                logger.warn("Could not flush the cart of user {}; it stays journaled", entry.getKey(), e);
+            }
+        }
+        if (allFlushed) {
+            journal.discardSealed();
+        }
+        evictClean();
+    }
+
+    private void flush(Long userId) {
+        CartState state;
+        synchronized (carts) {
+            state = carts.get(userId);
+        }
+        if (state != null) {
+            write(userId, state);
+        }
+    }
+
+    /**
+     * Writes the cart if it changed since the last write. The cart stays
+     * locked for the write, so a click never interleaves with its own flush.
+     */
+    private void write(Long userId, CartState state) {
+        synchronized (state) {
+            if (state.discarded || state.version == state.flushedVersion) {
+                return;
+            }
+            List<CartLine> lines = state.items.values().stream()
+                .map(item -> new CartLine(item.productId, item.quantity, item.unitPrice))
+                .toList();
+            writer.write(userId, lines, true);
+            state.flushedVersion = state.version;
+        }
+    }
+
+    private void evictClean() {
+        synchronized (carts) {
+            var iterator = carts.values().iterator();
+            while (carts.size() > maxCarts && iterator.hasNext()) {
+                CartState state = iterator.next();
+                synchronized (state) {
+                    if (state.version == state.flushedVersion) {
+                        state.discarded = true;
+                        iterator.remove();
+                    }
+                }
+            }
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private CartDTO toDTO(CartState state) {
+        synchronized (state) {
+            CartDTO dto = new CartDTO();
+            dto.setId(state.cartId);
+            dto.setUserId(state.userId);
+            dto.setUserName(state.userName);
+            dto.setUserEmail(state.userEmail);
+            dto.setCreatedAt(state.createdAt);
+            dto.setUpdatedAt(state.updatedAt);
+            dto.setTotal(state.total());
+            dto.setItems(state.items.values().stream().map(item -> item.toDTO(state.cartId)).toList());
+            return dto;
+        }
+    }
+
+    private static final class CartState {
+        private final Long cartId;
+        private final Long userId;
+        private final String userName;
+        private final String userEmail;
+        private final Date createdAt;
+        private Date updatedAt;
+        private final Map<Long, CartItemState> items = new LinkedHashMap<>();
+
+        private long version;
+        private long flushedVersion;
+        // Written under the cart's lock, read by lookups under the map's
+        private volatile boolean discarded;
+
+        private CartState(CartDTO cart) {
+            this.cartId = cart.getId();
+            this.userId = cart.getUserId();
+            this.userName = cart.getUserName();
+            this.userEmail = cart.getUserEmail();
+            this.createdAt = cart.getCreatedAt();
+            this.updatedAt = cart.getUpdatedAt();
+            if (cart.getItems() != null) {
+                for (CartItemDTO item : cart.getItems()) {
+                    items.put(item.getProductId(), new CartItemState(item));
+                }
+            }
+        }
+
+        private BigDecimal total() {
+            return items.values().stream()
+                .map(CartItemState::subtotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        }
+    }
+
+    private static final class CartItemState {
+        private final Long productId;
+        private final String productName;
+        private final String productImageUrl;
+        private final BigDecimal productPrice;
+        private final BigDecimal unitPrice;
+        private int quantity;
+
+        private CartItemState(ProductDTO product, int quantity, BigDecimal unitPrice) {
+            this.productId = product.getId();
+            this.productName = product.getName();
+            this.productImageUrl = product.getImageUrl();
+            this.productPrice = product.getPrice();
+            this.unitPrice = unitPrice;
+            this.quantity = quantity;
+        }
+
+        private CartItemState(CartItemDTO item) {
+            this.productId = item.getProductId();
+            this.productName = item.getProductName();
+            this.productImageUrl = item.getProductImageUrl();
+            this.productPrice = item.getProductPrice();
+            this.unitPrice = item.getUnitPrice();
+            this.quantity = item.getQuantity();
+        }
+
+        private BigDecimal subtotal() {
+            return unitPrice.multiply(BigDecimal.valueOf(quantity));
+        }
+
+        private CartItemDTO toDTO(Long cartId) {
+            CartItemDTO dto = new CartItemDTO();
+            dto.setCartId(cartId);
+            dto.setProductId(productId);
+            dto.setProductName(productName);
+            dto.setProductImageUrl(productImageUrl);
+            dto.setProductPrice(productPrice);
+            dto.setUnitPrice(unitPrice);
+            dto.setQuantity(quantity);
+            dto.setSubtotal(subtotal());
+            return dto;
+        }
+    }
+}
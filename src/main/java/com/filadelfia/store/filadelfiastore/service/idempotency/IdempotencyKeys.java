@@ -0,0 +1,169 @@
+package com.filadelfia.store.filadelfiastore.service.idempotency;
+
+import com.filadelfia.store.filadelfiastore.exception.custom.RepeatedRequestException;
+import com.filadelfia.store.filadelfiastore.model.entity.IdempotencyKey;
+import com.filadelfia.store.filadelfiastore.repository.IdempotencyKeyRepository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs a form submission at most once per key.
+ *
+ * The page that shows the form issues a key; the first submission claims
+ * it in a short transaction of its own, runs the work and then records the
+ * id of what the work created. A repeated submission finds the claim and
+ * gets that id back without running the work again; one that arrives while
+ * the first is still running waits for it. When the work fails the claim
+ * is dropped, so the form can be sent again.
+ *
+ * The work keeps its own transaction, with its own rollback rules, so the
+ * id is recorded just after it commits. Should the process die in between,
+ * the claim stays open until it expires and a resend is told to look at
+ * the user's orders instead of creating another one.
+ */
+@Component
+public class IdempotencyKeys {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final IdempotencyKeyRepository repository;
+    private final TransactionTemplate transaction;
+    private final long ttlMinutes;
+    private final long waitMillis;
+
+    public IdempotencyKeys(IdempotencyKeyRepository repository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.idempotency.ttl-minutes:1440}") long ttlMinutes,
+                           @Value("${app.idempotency.wait-ms:10000}") long waitMillis) {
+        this.repository = repository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.ttlMinutes = ttlMinutes;
+        this.waitMillis = waitMillis;
+    }
+
+    /**
+     * A new key, handed out with the form it protects.
+     */
+    public String issue() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Runs the work unless the key was already used for the same request.
+     * Without a key (a form rendered before keys existed) the work just runs.
+     *
+     * @param fingerprint the submitted values, see {@link #fingerprint}
+     * @param resourceId  the id to keep from the work's result
+     * @param replay      loads the result of an earlier submission by that id
+     */
+    public <T> T execute(String scope, Long userId, String key, String fingerprint,
+                         Supplier<T> work, Function<T, Long> resourceId, Function<Long, T> replay) {
+        if (key == null || key.isBlank()) {
+            return work.get();
+        }
+        String requestHash = sha256(fingerprint);
+        long deadline = System.currentTimeMillis() + waitMillis;
+
+        IdempotencyKey claim = null;
+        while (claim == null) {
+            Optional<IdempotencyKey> existing = repository.findCurrentByScopeAndIdempotencyKey(scope, key);
+            if (existing.isEmpty()) {
+                claim = tryClaim(scope, userId, key, requestHash);
+                continue;
+            }
+            IdempotencyKey previous = existing.get();
+            if (previous.isExpired()) {
+                transaction.executeWithoutResult(status -> repository.deleteIfExpired(previous.getId(), LocalDateTime.now()));
+                continue;
+            }
+            if (!previous.getUserId().equals(userId) || !previous.getRequestHash().equals(requestHash)) {
+                throw new RepeatedRequestException(
+                    "Este formulário já foi enviado com outros dados. Recarregue a página e tente novamente.");
+            }
+            if (previous.getResourceId() != null) {
+                return replay.apply(previous.getResourceId());
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                throw new RepeatedRequestException(
+                    "Esta solicitação ainda está sendo processada. Aguarde alguns instantes e confira seus pedidos.");
+            }
+            pause();
+        }
+
+        Long claimId = claim.getId();
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException e) {
+            transaction.executeWithoutResult(status -> repository.release(claimId));
+            throw e;
+        }
+        transaction.executeWithoutResult(status -> repository.complete(claimId, resourceId.apply(result)));
+        return result;
+    }
+
+    /**
+     * Joins the submitted values into the text the request hash is taken of.
+     */
+    public static String fingerprint(Object... values) {
+        StringBuilder fingerprint = new StringBuilder();
+        for (Object value : values) {
+            fingerprint.append(Objects.toString(value, "")).append('\u001f');
+        }
+        return fingerprint.toString();
+    }
+
+    public int purgeExpired() {
+        Integer purged = transaction.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+        return purged != null ? purged : 0;
+    }
+
+    // Null when another submission claimed the key first
+    private IdempotencyKey tryClaim(String scope, Long userId, String key, String requestHash) {
+        IdempotencyKey claim = new IdempotencyKey();
+        claim.setScope(scope);
+        claim.setIdempotencyKey(key);
+        claim.setUserId(userId);
+        claim.setRequestHash(requestHash);
+        claim.setCreatedAt(LocalDateTime.now());
+        claim.setExpiresAt(claim.getCreatedAt().plusMinutes(ttlMinutes));
+        try {
+            return transaction.execute(status -> repository.saveAndFlush(claim));
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(POLL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RepeatedRequestException("Esta solicitação ainda está sendo processada.");
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -3,68 +3,94 @@ package com.filadelfia.store.filadelfiastore.service.implementation;
 import com.filadelfia.store.filadelfiastore.exception.custom.ResourceNotFoundException;
 import com.filadelfia.store.filadelfiastore.model.dto.CartDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemUpdateDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutLineChangeDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutValidationDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.Cart;
 import com.filadelfia.store.filadelfiastore.model.entity.CartItem;
 import com.filadelfia.store.filadelfiastore.model.entity.Product;
 import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.CheckoutIssue;
 import com.filadelfia.store.filadelfiastore.model.mapper.CartMapper;
 import com.filadelfia.store.filadelfiastore.repository.CartItemRepository;
 import com.filadelfia.store.filadelfiastore.repository.CartRepository;
 import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
 import com.filadelfia.store.filadelfiastore.repository.UserRepository;
 import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class CartServiceImpl implements CartService {
     
+    private static final Logger logger = LoggerFactory.getLogger(CartServiceImpl.class);
+    
+    // Attempts per cart write before a conflict reaches the caller, and the
+    // base pause between them (randomized so racing tabs do not collide again)
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long RETRY_BACKOFF_MILLIS = 10;
+    
     private CartRepository cartRepository;
     private CartItemRepository cartItemRepository;
     private UserRepository userRepository;
     private ProductRepository productRepository;
     private CartMapper cartMapper;
+    private TransactionTemplate transactionTemplate;
 
     public CartServiceImpl(
             CartRepository cartRepository,
             CartItemRepository cartItemRepository,
             UserRepository userRepository,
             ProductRepository productRepository,
-            CartMapper cartMapper) {
+            CartMapper cartMapper,
+            PlatformTransactionManager transactionManager) {
         this.cartRepository = cartRepository;
         this.cartItemRepository = cartItemRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.cartMapper = cartMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CartDTO getOrCreateCart(Long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
-        
-        Optional<Cart> existingCart = cartRepository.findByUserId(userId);
-        if (existingCart.isPresent()) {
-            return cartMapper.toDTO(existingCart.get());
-        }
-        
-        // Create new cart
-        Cart newCart = new Cart(user);
-        newCart = cartRepository.save(newCart);
-        return cartMapper.toDTO(newCart);
+        return withRetry(() -> cartMapper.toDTO(getOrCreateCartEntity(userId)));
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CartDTO getCartByUserId(Long userId) {
-        Optional<Cart> cart = cartRepository.findByUserIdWithItems(userId);
-        if (cart.isPresent()) {
-            return cartMapper.toDTO(cart.get());
-        }
-        return getOrCreateCart(userId);
+        return withRetry(() -> {
+            Optional<Cart> cart = cartRepository.findByUserIdWithItems(userId);
+            if (cart.isPresent()) {
+                return cartMapper.toDTO(cart.get());
+            }
+            return getOrCreateCart(userId);
+        });
     }
     
     @Override
@@ -73,12 +99,16 @@ public class CartServiceImpl implements CartService {
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void clearCart(Long userId) {
-        Optional<Cart> cart = cartRepository.findByUserId(userId);
-        if (cart.isPresent()) {
-            cart.get().clear();
-            cartRepository.save(cart.get());
-        }
+        withRetry(() -> {
+            Optional<Cart> cart = cartRepository.findByUserId(userId);
+            if (cart.isPresent()) {
+                cart.get().clear();
+                cartRepository.save(cart.get());
+            }
+            return null;
+        });
     }
     
     @Override
@@ -87,73 +117,105 @@ public class CartServiceImpl implements CartService {
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CartItemDTO addItemToCart(Long userId, Long productId, Integer quantity) {
-        if (quantity <= 0) {
-            throw new IllegalArgumentException("Quantity must be greater than zero");
-        }
-        
-        Cart cart = getOrCreateCartEntity(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-        
-        // Check if item already exists in cart
-        Optional<CartItem> existingItem = cartItemRepository.findByCartAndProduct(cart, product);
-        
-        if (existingItem.isPresent()) {
-            // Update quantity
-            CartItem item = existingItem.get();
-            item.setQuantity(item.getQuantity() + quantity);
-            item.calculateSubtotal();
-            cartItemRepository.save(item);
-            cart.calculateTotal();
-            cartRepository.save(cart);
-            return cartMapper.toCartItemDTO(item);
-        } else {
-            // Create new cart item
-            CartItem newItem = new CartItem(cart, product, quantity, product.getPrice());
-            newItem.calculateSubtotal();
-            cartItemRepository.save(newItem);
-            cart.addItem(newItem);
-            cartRepository.save(cart);
-            return cartMapper.toCartItemDTO(newItem);
-        }
+        return withRetry(() -> {
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+            
+            Long cartId = getOrCreateCartId(userId);
+            Date now = new Date(System.currentTimeMillis());
+            
+            // Bump the existing line, or insert it at the current product price
+            if (cartItemRepository.incrementQuantity(cartId, productId, quantity, now) == 0
+                    && cartItemRepository.insertLine(cartId, productId, quantity, now) == 0) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+            cartRepository.adjustTotalByQuantityDelta(cartId, productId, quantity, now);
+            
+            return cartItemRepository.findDTOByCartIdAndProductId(cartId, productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
+        });
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CartItemDTO updateCartItemQuantity(Long userId, Long productId, Integer quantity) {
-        if (quantity <= 0) {
-            removeItemFromCart(userId, productId);
-            return null;
-        }
-        
-        Cart cart = getOrCreateCartEntity(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-        
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
-        
-        item.setQuantity(quantity);
-        item.calculateSubtotal();
-        cartItemRepository.save(item);
-        cart.calculateTotal();
-        cartRepository.save(cart);
-        
-        return cartMapper.toCartItemDTO(item);
+        return withRetry(() -> {
+            if (quantity <= 0) {
+                removeItemFromCart(userId, productId);
+                return null;
+            }
+            
+            Long cartId = getOrCreateCartId(userId);
+            Date now = new Date(System.currentTimeMillis());
+            
+            // The total moves first, while the line still holds the old quantity
+            cartRepository.adjustTotalToQuantity(cartId, productId, quantity, now);
+            if (cartItemRepository.setQuantity(cartId, productId, quantity, now) == 0) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            
+            return cartItemRepository.findDTOByCartIdAndProductId(cartId, productId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
+        });
     }
     
     @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void removeItemFromCart(Long userId, Long productId) {
-        Cart cart = getOrCreateCartEntity(userId);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productId));
-        
-        CartItem item = cartItemRepository.findByCartAndProduct(cart, product)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
-        
-        cart.removeItem(item);
-        cartItemRepository.delete(item);
-        cartRepository.save(cart);
+        withRetry(() -> {
+            Long cartId = getOrCreateCartId(userId);
+            
+            cartRepository.adjustTotalToQuantity(cartId, productId, 0, new Date(System.currentTimeMillis()));
+            if (cartItemRepository.deleteLine(cartId, productId) == 0) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            return null;
+        });
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CartDTO updateCartItems(Long userId, List<CartItemUpdateDTO> changes) {
+        return withRetry(() -> {
+            Map<Long, Integer> quantities = collapse(changes);
+            Cart cart = cartRepository.findByUserIdWithItems(userId)
+                    .orElseGet(() -> getOrCreateCartEntity(userId));
+            
+            // Only products not yet in the cart need loading, all in one query
+            List<Long> newProductIds = quantities.entrySet().stream()
+                    .filter(change -> change.getValue() > 0 && cart.findItemByProductId(change.getKey()) == null)
+                    .map(Map.Entry::getKey)
+                    .toList();
+            Map<Long, Product> newProducts = newProductIds.isEmpty() ? Map.of()
+                    : productRepository.findAllById(newProductIds).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+            
+            for (Map.Entry<Long, Integer> change : quantities.entrySet()) {
+                Long productId = change.getKey();
+                int quantity = change.getValue();
+                CartItem item = cart.findItemByProductId(productId);
+                if (quantity <= 0) {
+                    if (item != null) {
+                        cart.getItems().remove(item);
+                    }
+                } else if (item != null) {
+                    item.setQuantity(quantity);
+                } else {
+                    Product product = newProducts.get(productId);
+                    if (product == null) {
+                        throw new ResourceNotFoundException("Product not found with id: " + productId);
+                    }
+                    cart.getItems().add(new CartItem(cart, product, quantity, product.getPrice()));
+                }
+            }
+            
+            cart.calculateTotal();
+            cart.setUpdatedAt(new Date(System.currentTimeMillis()));
+            return cartMapper.toDTO(cartRepository.save(cart));
+        });
     }
     
     @Override
@@ -162,6 +224,135 @@ public class CartServiceImpl implements CartService {
         return cartMapper.toCartItemDTOList(items);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Long, ProductDTO> requireProducts(Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return Map.of();
+        }
+        Map<Long, ProductDTO> products = productRepository.findDetailsByIdIn(productIds).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+        for (Long productId : productIds) {
+            if (!products.containsKey(productId)) {
+                throw new ResourceNotFoundException("Product not found with id: " + productId);
+            }
+        }
+        return products;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public CartDTO getGuestCart(Map<Long, Integer> quantities) {
+        CartDTO cart = new CartDTO();
+        List<CartItemDTO> items = new ArrayList<>();
+        BigDecimal total = BigDecimal.ZERO;
+        
+        // Priced at the current product price; unknown or inactive products drop out
+        Map<Long, ProductDTO> products = findActiveProducts(quantities);
+        for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+            ProductDTO product = products.get(line.getKey());
+            if (product == null) {
+                continue;
+            }
+            CartItemDTO item = new CartItemDTO();
+            item.setProductId(product.getId());
+            item.setProductName(product.getName());
+            item.setProductDescription(product.getDescription());
+            item.setProductImageUrl(product.getImageUrl());
+            item.setProductPrice(product.getPrice());
+            item.setUnitPrice(product.getPrice());
+            item.setQuantity(line.getValue());
+            item.setSubtotal(product.getPrice().multiply(BigDecimal.valueOf(line.getValue())));
+            items.add(item);
+            total = total.add(item.getSubtotal());
+        }
+        
+        cart.setItems(items);
+        cart.setTotal(total);
+        return cart;
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void mergeGuestCart(Long userId, Map<Long, Integer> quantities) {
+        withRetry(() -> {
+            Map<Long, ProductDTO> products = findActiveProducts(quantities);
+            if (products.isEmpty()) {
+                return null;
+            }
+            
+            // One load of the cart and its items, one write of every changed line
+            Cart cart = cartRepository.findByUserIdWithItems(userId)
+                    .orElseGet(() -> getOrCreateCartEntity(userId));
+            for (Map.Entry<Long, Integer> line : quantities.entrySet()) {
+                ProductDTO product = products.get(line.getKey());
+                if (product == null) {
+                    continue;
+                }
+                CartItem item = cart.findItemByProductId(product.getId());
+                if (item != null) {
+                    item.setQuantity(item.getQuantity() + line.getValue());
+                } else {
+                    cart.getItems().add(new CartItem(cart, productRepository.getReferenceById(product.getId()),
+                            line.getValue(), product.getPrice()));
+                }
+            }
+            cart.calculateTotal();
+            cart.setUpdatedAt(new Date(System.currentTimeMillis()));
+            cartRepository.save(cart);
+            return null;
+        });
+    }
+    
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public CheckoutValidationDTO validateForCheckout(Long userId) {
+        return withRetry(() -> {
+            // Cart, items and their products come back in one fetch-join query
+            Optional<Cart> found = cartRepository.findByUserIdWithItems(userId);
+            if (found.isEmpty()) {
+                return new CheckoutValidationDTO();
+            }
+            
+            Cart cart = found.get();
+            BigDecimal previousTotal = cart.getTotal();
+            List<CheckoutLineChangeDTO> changes = new ArrayList<>();
+            boolean repriced = false;
+            
+            for (CartItem item : cart.getItems()) {
+                Product product = item.getProduct();
+                BigDecimal previousPrice = item.getUnitPrice();
+                boolean priceChanged = previousPrice.compareTo(product.getPrice()) != 0;
+            
+                CheckoutIssue issue = null;
+                if (!Boolean.TRUE.equals(product.getActive())) {
+                    issue = CheckoutIssue.INACTIVE;
+                } else if (product.getStock() == null || product.getStock() <= 0) {
+                    issue = CheckoutIssue.OUT_OF_STOCK;
+                } else if (item.getQuantity() > product.getStock()) {
+                    issue = CheckoutIssue.INSUFFICIENT_STOCK;
+                } else if (priceChanged) {
+                    issue = CheckoutIssue.PRICE_CHANGED;
+                }
+            
+                if (priceChanged) {
+                    item.setUnitPrice(product.getPrice());
+                    repriced = true;
+                }
+                if (issue != null) {
+                    changes.add(new CheckoutLineChangeDTO(product.getId(), product.getName(), item.getQuantity(),
+                            previousPrice, product.getPrice(), product.getStock(), issue));
+                }
+            }
+            
+            if (repriced) {
+                cart.calculateTotal();
+                cart.setUpdatedAt(new Date(System.currentTimeMillis()));
+            }
+            return new CheckoutValidationDTO(changes, previousTotal, cart.getTotal());
+        });
+    }
+    
     @Override
     public Integer getTotalItemsInCart(Long userId) {
         Optional<Cart> cart = cartRepository.findByUserId(userId);
@@ -189,6 +380,66 @@ public class CartServiceImpl implements CartService {
         return false;
     }
     
+    /**
+     * Batch changes keyed by product; a product listed twice keeps its last quantity.
+     */
+    private Map<Long, Integer> collapse(List<CartItemUpdateDTO> changes) {
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
+        for (CartItemUpdateDTO change : changes) {
+            if (change.getProductId() == null || change.getQuantity() == null) {
+                throw new IllegalArgumentException("Each change needs a product id and a quantity");
+            }
+            quantities.put(change.getProductId(), change.getQuantity());
+        }
+        return quantities;
+    }
+    
+    private Map<Long, ProductDTO> findActiveProducts(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) {
+            return Map.of();
+        }
+        return productRepository.findActiveSummariesByIdIn(quantities.keySet()).stream()
+                .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+    }
+    
+    /**
+     * Runs a cart write in its own transaction and replays it when a parallel
+     * request to the same cart won the race: a stale version on the cart or a
+     * line, or a duplicate cart or line insert. Each attempt rereads the rows,
+     * so the replay applies on top of the winner's change. Inside a caller's
+     * transaction the caller owns the outcome and the work simply joins it.
+     */
+    private <T> T withRetry(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> work.get());
+            } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                logger.debug("Cart write conflicted (attempt {} of {}), retrying: {}", attempt, MAX_ATTEMPTS, e.getMessage());
+                backOff(attempt);
+            }
+        }
+    }
+    
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(RETRY_BACKOFF_MILLIS * attempt) + 1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying a cart write", e);
+        }
+    }
+    
+    private Long getOrCreateCartId(Long userId) {
+        return cartRepository.findIdByUserId(userId)
+                .orElseGet(() -> getOrCreateCartEntity(userId).getId());
+    }
+    
     private Cart getOrCreateCartEntity(Long userId) {
         Optional<Cart> cart = cartRepository.findByUserId(userId);
         if (cart.isPresent()) {
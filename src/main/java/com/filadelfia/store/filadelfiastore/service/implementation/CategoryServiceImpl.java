@@ -1,25 +1,32 @@
 package com.filadelfia.store.filadelfiastore.service.implementation;
 
+import com.filadelfia.store.filadelfiastore.event.CategoryChangedEvent;
 import com.filadelfia.store.filadelfiastore.exception.custom.DuplicateCategoryException;
 import com.filadelfia.store.filadelfiastore.exception.custom.ResourceNotFoundException;
 import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.CategoryDetailedDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryNodeDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.Category;
 import com.filadelfia.store.filadelfiastore.model.mapper.CategoryMapper;
-import com.filadelfia.store.filadelfiastore.model.mapper.ProductMapper;
 import com.filadelfia.store.filadelfiastore.repository.CategoryRepository;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.service.cache.CatalogCache;
+import com.filadelfia.store.filadelfiastore.service.cache.CategoryTreeSnapshot;
 import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.util.KeysetCursor;
 import com.filadelfia.store.filadelfiastore.util.PageableValidator;
 
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -27,21 +34,30 @@ import java.util.stream.Collectors;
 @Service
 public class CategoryServiceImpl implements CategoryService  {
 
-    private final ProductMapper productMapper;
+    private static final int LOW_STOCK_THRESHOLD = 10;
+    private static final int MAX_PRODUCT_PAGE_SIZE = 100;
+    private static final int MAX_DEPTH = 5;
 
     private final CategoryRepository categoryRepository;
+    private final ProductRepository productRepository;
     private final CategoryMapper categoryMapper;
     private final PageableValidator pageableValidator;
+    private final CatalogCache catalogCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CategoryTreeSnapshot categoryTreeSnapshot;
 
     private final Set<String> ALLOWED_SORT_PROPERTIES = Set.of(
         "id", "name", "description", "createdAt", "updatedAt"
     );
   
-    public CategoryServiceImpl(CategoryRepository categoryRepository, CategoryMapper categoryMapper, ProductMapper productMapper, PageableValidator pageableValidator) {
+    public CategoryServiceImpl(CategoryRepository categoryRepository, CategoryMapper categoryMapper, ProductRepository productRepository, PageableValidator pageableValidator, CatalogCache catalogCache, ApplicationEventPublisher eventPublisher, CategoryTreeSnapshot categoryTreeSnapshot) {
         this.categoryRepository = categoryRepository;
         this.categoryMapper = categoryMapper;
-        this.productMapper = productMapper;
+        this.productRepository = productRepository;
         this.pageableValidator = pageableValidator;
+        this.catalogCache = catalogCache;
+        this.eventPublisher = eventPublisher;
+        this.categoryTreeSnapshot = categoryTreeSnapshot;
     }
 
     @Override
@@ -76,9 +92,9 @@ public class CategoryServiceImpl implements CategoryService  {
     
     @Override
     @Transactional(readOnly = true)
-    public Optional<CategoryDetailedDTO> getCategoryDetailedById(Long id) {
+    public Optional<CategoryDetailedDTO> getCategoryDetailedById(Long id, String cursor, int size) {
         return categoryRepository.findById(id)
-            .map(this::toDetailedDTO);
+            .map(category -> toDetailedDTO(category, cursor, size));
     }
 
     @Override
@@ -95,17 +111,21 @@ public class CategoryServiceImpl implements CategoryService  {
             throw new DuplicateCategoryException("Já existe uma categoria com o nome: " + request.getName());
         }
 
-        Category savedCategory = categoryRepository.save(categoryMapper.toEntity(request));
-        return categoryMapper.toDTO(savedCategory);
+        Category category = categoryMapper.toEntity(request);
+        category.setParent(resolveParent(request.getParentId(), null));
+        Category savedCategory = categoryRepository.save(category);
+        // The path ends with the category's own id, known only once inserted
+        savedCategory.setPath(pathOf(savedCategory.getParent()) + savedCategory.getId() + "/");
+        return publishChange(savedCategory);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<CategoryDTO> getAllCategories() {
-        return categoryRepository.findAll()
+        return catalogCache.getAllCategories(() -> categoryRepository.findAll()
             .stream()
             .map(categoryMapper::toDTO)
-            .collect(Collectors.toList());
+            .collect(Collectors.toList()));
     }
 
     @Override
@@ -131,12 +151,25 @@ public class CategoryServiceImpl implements CategoryService  {
         throw new DuplicateCategoryException("Já existe uma categoria com o nome: " + request.getName());
     }
 
+    // A request without a parent keeps the current one; moving to the top level is explicit
+    Long currentParentId = existing.getParent() != null ? existing.getParent().getId() : null;
+    Long requestedParentId = request.getParentId() != null || Boolean.TRUE.equals(request.getMoveToRoot())
+        ? request.getParentId() : currentParentId;
+    if (!Objects.equals(currentParentId, requestedParentId)) {
+        Category parent = resolveParent(requestedParentId, existing);
+        String newPath = pathOf(parent) + existing.getId() + "/";
+        categoryRepository.movePaths(existing.getPath(), newPath);
+        existing.setParent(parent);
+        existing.setPath(newPath);
+    }
+
     existing.setUpdatedAt(new java.sql.Date(System.currentTimeMillis()));
 
-    // Copy properties from request to existing entity, ignoring id and password
-    BeanUtils.copyProperties(request, existing, "id", "createdAt");
+    // Copy properties from request to existing entity, ignoring id and the tree placement
+    BeanUtils.copyProperties(request, existing, "id", "createdAt", "path",
+        "activeProductCount", "inStockCount");
     Category updated = categoryRepository.save(existing);
-    return categoryMapper.toDTO(updated);
+    return publishChange(updated);
 }
 
     @Override
@@ -147,27 +180,89 @@ public class CategoryServiceImpl implements CategoryService  {
                 
         category.setActive(false);
         category.setUpdatedAt(new java.sql.Date(System.currentTimeMillis()));
-        categoryRepository.save(category);
+        publishChange(categoryRepository.save(category));
+    }
+
+    @Override
+    public List<CategoryNodeDTO> getCategoryTree() {
+        return categoryTreeSnapshot.flattened();
     }
 
+    @Override
+    public Optional<CategoryNodeDTO> getCategoryNode(String name) {
+        return categoryTreeSnapshot.findByName(name);
+    }
 
-    public CategoryDetailedDTO toDetailedDTO(Category category) {
-        if (category == null) {
+    /**
+     * Loads the requested parent, rejecting a move of a category under
+     * itself or one of its own descendants, or one that would push the
+     * deepest category of the moved subtree past the depth limit.
+     */
+    private Category resolveParent(Long parentId, Category moving) {
+        if (parentId == null) {
             return null;
         }
-        
+        Category parent = categoryRepository.findById(parentId)
+            .orElseThrow(() -> new ResourceNotFoundException("Categoria pai não encontrada"));
+        if (moving != null && parent.getPath() != null && parent.getPath().startsWith(moving.getPath())) {
+            throw new IllegalArgumentException("Uma categoria não pode ficar dentro dela mesma ou de uma subcategoria sua");
+        }
+        long levels = levelsOf(pathOf(parent));
+        if (moving != null) {
+            long movingLevels = levelsOf(moving.getPath());
+            levels += categoryRepository.findPathsUnder(moving.getPath()).stream()
+                .mapToLong(path -> levelsOf(path) - movingLevels)
+                .max()
+                .orElse(0);
+        }
+        if (levels > MAX_DEPTH) {
+            throw new IllegalArgumentException("Limite de " + MAX_DEPTH + " níveis de subcategorias atingido");
+        }
+        return parent;
+    }
+
+    private static long levelsOf(String path) {
+        return path.chars().filter(c -> c == '/').count();
+    }
+
+    private static String pathOf(Category parent) {
+        return parent == null || parent.getPath() == null ? "/" : parent.getPath();
+    }
+
+    private CategoryDTO publishChange(Category category) {
+        CategoryDTO dto = categoryMapper.toDTO(category);
+        eventPublisher.publishEvent(new CategoryChangedEvent(dto));
+        return dto;
+    }
+
+
+    /**
+     * Counts come from one aggregate query and products from one keyset page,
+     * so the cost does not grow with the size of the category.
+     */
+    private CategoryDetailedDTO toDetailedDTO(Category category, String cursor, int size) {
         CategoryDetailedDTO dto = new CategoryDetailedDTO();
         dto.setId(category.getId());
+        dto.setCreatedAt(category.getCreatedAt());
+        dto.setUpdatedAt(category.getUpdatedAt());
         dto.setName(category.getName());
         dto.setDescription(category.getDescription());
         dto.setActive(category.getActive());
-        if (category.getProducts() != null) {
-            List<ProductDTO> productDTOs = category.getProducts().stream()
-                .map(productMapper::toDTO)
-                .collect(Collectors.toList());
-            dto.setProducts(productDTOs);
-        } else {
-            dto.setProducts(Collections.emptyList());
+        dto.setProductCounts(productRepository.countByCategoryId(category.getId(), LOW_STOCK_THRESHOLD));
+
+        int pageSize = Math.min(Math.max(size, 1), MAX_PRODUCT_PAGE_SIZE);
+        // Fetch one extra row to learn whether another page exists
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<ProductDTO> rows = KeysetCursor.decode(cursor)
+            .map(after -> productRepository.findByCategoryIdAfter(category.getId(), after.getSortKey(), after.getId(), limit))
+            .orElseGet(() -> productRepository.findByCategoryIdFirstPage(category.getId(), limit));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductDTO> products = hasNext ? rows.subList(0, pageSize) : rows;
+        dto.setProducts(products);
+        if (hasNext) {
+            ProductDTO last = products.get(products.size() - 1);
+            dto.setNextCursor(KeysetCursor.encode(last.getName(), last.getId()));
         }
         return dto;
     }
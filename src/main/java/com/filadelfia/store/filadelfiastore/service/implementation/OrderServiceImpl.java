@@ -1,6 +1,8 @@
 package com.filadelfia.store.filadelfiastore.service.implementation;
 
+import com.filadelfia.store.filadelfiastore.exception.custom.CheckoutChangedException;
 import com.filadelfia.store.filadelfiastore.exception.custom.ResourceNotFoundException;
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutValidationDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.OrderDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.OrderItemDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.*;
@@ -10,8 +12,9 @@ import com.filadelfia.store.filadelfiastore.model.mapper.OrderMapper;
 import com.filadelfia.store.filadelfiastore.repository.*;
 import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
 import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
+import com.filadelfia.store.filadelfiastore.service.inventory.StockReservations;
+import com.filadelfia.store.filadelfiastore.util.SnowflakeIdGenerator;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -19,21 +22,28 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
 public class OrderServiceImpl implements OrderService {
 
+    // Bounds the IN list when an unpaged listing loads its lines
+    private static final int LINES_CHUNK = 500;
+
     private OrderRepository orderRepository;
     private OrderItemRepository orderItemRepository;
     private UserRepository userRepository;
     private ProductRepository productRepository;
     private CartService cartService;
     private OrderMapper orderMapper;
+    private StockReservations stockReservations;
+    private SnowflakeIdGenerator idGenerator;
 
     public OrderServiceImpl(
             OrderRepository orderRepository,
@@ -41,27 +51,26 @@ public class OrderServiceImpl implements OrderService {
             UserRepository userRepository,
             ProductRepository productRepository,
             CartService cartService,
-            OrderMapper orderMapper) {
+            OrderMapper orderMapper,
+            StockReservations stockReservations,
+            SnowflakeIdGenerator idGenerator) {
         this.orderRepository = orderRepository;
         this.orderItemRepository = orderItemRepository;
         this.userRepository = userRepository;
         this.productRepository = productRepository;
         this.cartService = cartService;
         this.orderMapper = orderMapper;
+        this.stockReservations = stockReservations;
+        this.idGenerator = idGenerator;
     }
     
     @Override
+    @Transactional(noRollbackFor = CheckoutChangedException.class)
     public OrderDTO createOrderFromCart(Long userId, PaymentMethod paymentMethod, String shippingAddress) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
-        // Get cart with items
-        Optional<Cart> cartOpt = cartService.findCartByUserId(userId);
-        if (cartOpt.isEmpty() || cartOpt.get().isEmpty()) {
-            throw new IllegalStateException("Cart is empty");
-        }
-        
-        Cart cart = cartOpt.get();
+        Cart cart = loadCheckoutCart(userId);
         
         // Create order
         Order order = new Order(user, paymentMethod);
@@ -77,17 +86,15 @@ public class OrderServiceImpl implements OrderService {
         order.setShippingZipCode("00000-000");
         order.setShippingCost(BigDecimal.ZERO);
         
-        order = orderRepository.save(order);
-        
-        // Create order items from cart items
+        // Create order items from cart items; they cascade from the order and
+        // go out as one batched insert when the transaction flushes
         for (CartItem cartItem : cart.getItems()) {
-            OrderItem orderItem = new OrderItem(order, cartItem.getProduct(), 
-                                               cartItem.getQuantity(), cartItem.getUnitPrice());
-            orderItemRepository.save(orderItem);
-            order.addItem(orderItem);
+            order.addItem(new OrderItem(order, cartItem.getProduct(), 
+                                        cartItem.getQuantity(), cartItem.getUnitPrice()));
         }
         
-        order.calculateTotals();
+        // Takes every line out of stock, or fails the whole order
+        stockReservations.reserve(order);
         order = orderRepository.save(order);
         
         // Clear cart after order creation
@@ -97,6 +104,7 @@ public class OrderServiceImpl implements OrderService {
     }
     
     @Override
+    @Transactional(noRollbackFor = CheckoutChangedException.class)
     public OrderDTO createOrderFromCartWithAddress(Long userId, PaymentMethod paymentMethod, Long addressId,
                                                   String shippingStreet, String shippingNumber, String shippingComplement,
                                                   String shippingNeighborhood, String shippingCity, String shippingState, 
@@ -104,13 +112,7 @@ public class OrderServiceImpl implements OrderService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + userId));
         
-        // Get cart with items
-        Optional<Cart> cartOpt = cartService.findCartByUserId(userId);
-        if (cartOpt.isEmpty() || cartOpt.get().isEmpty()) {
-            throw new IllegalStateException("Cart is empty");
-        }
-        
-        Cart cart = cartOpt.get();
+        Cart cart = loadCheckoutCart(userId);
         
         // Create order
         Order order = new Order(user, paymentMethod);
@@ -132,17 +134,15 @@ public class OrderServiceImpl implements OrderService {
         order.setShippingZipCode(shippingZipCode != null ? shippingZipCode : "");
         order.setShippingCost(BigDecimal.ZERO);
         
-        order = orderRepository.save(order);
-        
-        // Create order items from cart items
+        // Create order items from cart items; they cascade from the order and
+        // go out as one batched insert when the transaction flushes
         for (CartItem cartItem : cart.getItems()) {
-            OrderItem orderItem = new OrderItem(order, cartItem.getProduct(), 
-                                               cartItem.getQuantity(), cartItem.getUnitPrice());
-            orderItemRepository.save(orderItem);
-            order.addItem(orderItem);
+            order.addItem(new OrderItem(order, cartItem.getProduct(), 
+                                        cartItem.getQuantity(), cartItem.getUnitPrice()));
         }
         
-        order.calculateTotals();
+        // Takes every line out of stock, or fails the whole order
+        stockReservations.reserve(order);
         order = orderRepository.save(order);
         
         // Clear cart after order creation
@@ -169,19 +169,15 @@ public class OrderServiceImpl implements OrderService {
         order.setShippingZipCode("00000-000");
         order.setShippingCost(BigDecimal.ZERO);
         
-        order = orderRepository.save(order);
-        
         // Create order items
         for (OrderItemDTO itemDTO : items) {
             Product product = productRepository.findById(itemDTO.getProductId())
                     .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + itemDTO.getProductId()));
             
-            OrderItem orderItem = new OrderItem(order, product, itemDTO.getQuantity(), product.getPrice());
-            orderItemRepository.save(orderItem);
-            order.addItem(orderItem);
+            order.addItem(new OrderItem(order, product, itemDTO.getQuantity(), product.getPrice()));
         }
         
-        order.calculateTotals();
+        stockReservations.reserve(order);
         order = orderRepository.save(order);
         
         return orderMapper.toDTO(order);
@@ -192,6 +188,10 @@ public class OrderServiceImpl implements OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
         
+        // Cancelling from the admin screens puts the reserved stock back too
+        if (status == OrderStatus.CANCELLED) {
+            stockReservations.release(order);
+        }
         order.setStatus(status);
         
         if (status == OrderStatus.SHIPPED) {
@@ -220,41 +220,32 @@ public class OrderServiceImpl implements OrderService {
     
     @Override
     public List<OrderDTO> getAllOrders() {
-        List<Order> orders = orderRepository.findAllOrderByCreatedAtDesc();
-        return orderMapper.toDTOList(orders);
+        return withLines(orderRepository.findSummariesOrderByCreatedAtDesc());
     }
     
     @Override
     public Page<OrderDTO> getAllOrders(Pageable pageable) {
-        Page<Order> orders = orderRepository.findAll(pageable);
-        List<OrderDTO> orderDTOs = orderMapper.toDTOList(orders.getContent());
-        return new PageImpl<>(orderDTOs, pageable, orders.getTotalElements());
+        return withLines(orderRepository.findSummaries(pageable));
     }
     
     @Override
     public List<OrderDTO> getUserOrders(Long userId) {
-        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return orderMapper.toDTOList(orders);
+        return withLines(orderRepository.findSummariesByUserIdOrderByCreatedAtDesc(userId));
     }
     
     @Override
     public Page<OrderDTO> getUserOrders(Long userId, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByUserId(userId, pageable);
-        List<OrderDTO> orderDTOs = orderMapper.toDTOList(orders.getContent());
-        return new PageImpl<>(orderDTOs, pageable, orders.getTotalElements());
+        return withLines(orderRepository.findSummariesByUserId(userId, pageable));
     }
     
     @Override
     public List<OrderDTO> getOrdersByStatus(OrderStatus status) {
-        List<Order> orders = orderRepository.findByStatus(status);
-        return orderMapper.toDTOList(orders);
+        return withLines(orderRepository.findSummariesByStatus(status));
     }
     
     @Override
     public Page<OrderDTO> getOrdersByStatus(OrderStatus status, Pageable pageable) {
-        Page<Order> orders = orderRepository.findByStatus(status, pageable);
-        List<OrderDTO> orderDTOs = orderMapper.toDTOList(orders.getContent());
-        return new PageImpl<>(orderDTOs, pageable, orders.getTotalElements());
+        return withLines(orderRepository.findSummariesByStatus(status, pageable));
     }
     
     @Override
@@ -262,8 +253,7 @@ public class OrderServiceImpl implements OrderService {
         Calendar cal = Calendar.getInstance();
         cal.add(Calendar.DAY_OF_MONTH, -days);
         Date startDate = new Date(cal.getTimeInMillis());
-        List<Order> orders = orderRepository.findRecentOrders(startDate);
-        return orderMapper.toDTOList(orders);
+        return withLines(orderRepository.findRecentSummaries(startDate));
     }
     
     @Override
@@ -325,6 +315,7 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalStateException("Cannot cancel order that has been shipped or delivered");
         }
         
+        stockReservations.release(order);
         order.setStatus(OrderStatus.CANCELLED);
         orderRepository.save(order);
     }
@@ -378,7 +369,51 @@ public class OrderServiceImpl implements OrderService {
         return sales != null ? sales : BigDecimal.ZERO;
     }
     
+    /**
+     * Reprices the cart and checks availability before any order row is
+     * written. A cart that changed is refused with the diff; the repricing
+     * still commits, so the next attempt goes through at the new prices.
+     */
+    private Cart loadCheckoutCart(Long userId) {
+        CheckoutValidationDTO validation = cartService.validateForCheckout(userId);
+        if (!validation.isClean()) {
+            throw new CheckoutChangedException(validation);
+        }
+        
+        // Get cart with items
+        Optional<Cart> cartOpt = cartService.findCartByUserId(userId);
+        if (cartOpt.isEmpty() || cartOpt.get().isEmpty()) {
+            throw new IllegalStateException("Cart is empty");
+        }
+        return cartOpt.get();
+    }
+    
+    private Page<OrderDTO> withLines(Page<OrderDTO> orders) {
+        withLines(orders.getContent());
+        return orders;
+    }
+    
+    /**
+     * Attaches the lines of every listed order, read with one query for the
+     * whole list instead of one per order and per line.
+     */
+    private List<OrderDTO> withLines(List<OrderDTO> orders) {
+        Map<Long, OrderDTO> byId = new HashMap<>();
+        for (OrderDTO order : orders) {
+            order.setItems(new ArrayList<>());
+            byId.put(order.getId(), order);
+        }
+        List<Long> orderIds = new ArrayList<>(byId.keySet());
+        for (int from = 0; from < orderIds.size(); from += LINES_CHUNK) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + LINES_CHUNK, orderIds.size()));
+            for (OrderItemDTO line : orderItemRepository.findLinesByOrderIdIn(chunk)) {
+                byId.get(line.getOrderId()).getItems().add(line);
+            }
+        }
+        return orders;
+    }
+    
     private String generateOrderNumber() {
-        return "ORD-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return "ORD-" + idGenerator.nextCode();
     }
 }
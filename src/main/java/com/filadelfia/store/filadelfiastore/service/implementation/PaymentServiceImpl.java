@@ -5,11 +5,14 @@ import com.filadelfia.store.filadelfiastore.exception.custom.InvalidOperationExc
 import com.filadelfia.store.filadelfiastore.model.dto.PaymentDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.Payment;
 import com.filadelfia.store.filadelfiastore.model.entity.Order;
+import com.filadelfia.store.filadelfiastore.model.enums.OrderStatus;
 import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
 import com.filadelfia.store.filadelfiastore.model.enums.PaymentStatus;
 import com.filadelfia.store.filadelfiastore.repository.PaymentRepository;
 import com.filadelfia.store.filadelfiastore.repository.OrderRepository;
 import com.filadelfia.store.filadelfiastore.service.interfaces.PaymentService;
+import com.filadelfia.store.filadelfiastore.service.inventory.StockReservations;
+import com.filadelfia.store.filadelfiastore.util.SnowflakeIdGenerator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,7 +24,6 @@ import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -36,6 +38,14 @@ public class PaymentServiceImpl implements PaymentService {
     
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final StockReservations stockReservations;
+    private final SnowflakeIdGenerator idGenerator;
+    
+    // Payments that still may, or already did, pay for their order
+    private static final Set<PaymentStatus> LIVE_STATUSES = EnumSet.of(
+        PaymentStatus.PENDING, PaymentStatus.PROCESSING, PaymentStatus.AUTHORIZED,
+        PaymentStatus.CONFIRMED, PaymentStatus.CAPTURED
+    );
     
     // Processing fee rates (in percentage)
     private static final Map<PaymentMethod, BigDecimal> PROCESSING_FEE_RATES = Map.of(
@@ -47,9 +57,12 @@ public class PaymentServiceImpl implements PaymentService {
         PaymentMethod.CASH, BigDecimal.ZERO
     );
     
-    public PaymentServiceImpl(PaymentRepository paymentRepository, OrderRepository orderRepository) {
+    public PaymentServiceImpl(PaymentRepository paymentRepository, OrderRepository orderRepository,
+                              StockReservations stockReservations, SnowflakeIdGenerator idGenerator) {
         this.paymentRepository = paymentRepository;
         this.orderRepository = orderRepository;
+        this.stockReservations = stockReservations;
+        this.idGenerator = idGenerator;
     }
     
     // Basic CRUD operations
@@ -68,7 +81,7 @@ public class PaymentServiceImpl implements PaymentService {
             .orElseThrow(() -> new ResourceNotFoundException("Order not found with ID: " + paymentDTO.getOrderId()));
         
         // Create payment entity
-        Payment payment = new Payment(order, paymentDTO.getPaymentMethod(), paymentDTO.getAmount());
+        Payment payment = new Payment(order, paymentDTO.getPaymentMethod(), paymentDTO.getAmount(), generateTransactionId());
         
         // Set additional fields from DTO
         mapDtoToEntity(paymentDTO, payment);
@@ -90,7 +103,7 @@ public class PaymentServiceImpl implements PaymentService {
     public Payment createPaymentForOrder(Order order, PaymentMethod paymentMethod, BigDecimal amount) {
         logger.info("Creating payment for order: {} with method: {}", order.getId(), paymentMethod);
         
-        Payment payment = new Payment(order, paymentMethod, amount);
+        Payment payment = new Payment(order, paymentMethod, amount, generateTransactionId());
         BigDecimal processingFee = calculateProcessingFee(paymentMethod, amount);
         payment.setProcessingFee(processingFee);
         
@@ -394,9 +407,7 @@ public class PaymentServiceImpl implements PaymentService {
     
     @Override
     public String generateTransactionId() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        String random = String.valueOf((int)(Math.random() * 999));
-        return String.format("PAY-%s-%03d", timestamp, Integer.parseInt(random));
+        return "PAY-" + idGenerator.nextCode();
     }
     
     @Override
@@ -529,11 +540,44 @@ public class PaymentServiceImpl implements PaymentService {
         for (Payment payment : expiredPayments) {
             payment.updateStatus(PaymentStatus.EXPIRED);
             paymentRepository.save(payment);
+            cancelIfUnpaid(payment.getOrder());
         }
         
         return expiredPayments;
     }
     
+    @Override
+    public List<Order> cancelAbandonedOrders(java.sql.Date placedBefore) {
+        // Covers orders left on the payment page and those whose only payments failed
+        List<Order> cancelled = new ArrayList<>();
+        for (Order order : orderRepository.findUnpaidPendingCreatedBefore(placedBefore)) {
+            if (cancelIfUnpaid(order)) {
+                cancelled.add(order);
+            }
+        }
+        return cancelled;
+    }
+    
+    /**
+     * A pending order left without any live payment is cancelled, and its
+     * reserved stock goes back on sale.
+     */
+    private boolean cancelIfUnpaid(Order order) {
+        if (order.getStatus() != OrderStatus.PENDING || Boolean.TRUE.equals(order.getPaymentConfirmed())) {
+            return false;
+        }
+        boolean stillPayable = paymentRepository.findByOrderIdOrderByCreatedAtDesc(order.getId()).stream()
+            .anyMatch(payment -> LIVE_STATUSES.contains(payment.getStatus()));
+        if (stillPayable) {
+            return false;
+        }
+        stockReservations.release(order);
+        order.setStatus(OrderStatus.CANCELLED);
+        orderRepository.save(order);
+        logger.info("Cancelled order {} left without a live payment", order.getOrderNumber());
+        return true;
+    }
+    
     @Override
     public List<Payment> processPaymentsRequiringConfirmation() {
         List<PaymentMethod> confirmationMethods = Arrays.asList(
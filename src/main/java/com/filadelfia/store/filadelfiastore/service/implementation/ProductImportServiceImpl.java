@@ -0,0 +1,565 @@
+package com.filadelfia.store.filadelfiastore.service.implementation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filadelfia.store.filadelfiastore.event.ProductsImportedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductImportJobDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.Category;
+import com.filadelfia.store.filadelfiastore.model.enums.ImportJobStatus;
+import com.filadelfia.store.filadelfiastore.repository.CategoryRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductImportService;
+import com.filadelfia.store.filadelfiastore.util.SearchTextNormalizer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk product import from CSV or JSON lines.
+ *
+ * The request body is spooled straight to a temporary file, with no
+ * multipart copy in between, and read back one line at a time on a
+ * background thread, so memory use does not grow with the file.
+ * Valid rows are inserted with JDBC batches, each batch in its own short
+ * transaction; invalid rows are written to a per-job CSV error report.
+ */
+@Service
+public class ProductImportServiceImpl implements ProductImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductImportServiceImpl.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_RETAINED_JOBS = 20;
+    private static final int MAX_TEXT_LENGTH = 255;
+    private static final BigDecimal MAX_PRICE = new BigDecimal("99999999.99");
+
+    private static final String INSERT_PRODUCT_SQL =
+        "INSERT INTO products (name, description, price, stock, image_url, category_id, active, featured, created_at, updated_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DataSize maxUploadSize;
+
+    private final ExecutorService importExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "product-import");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Insertion ordered so the oldest jobs are dropped first
+    private final Map<String, ImportJob> jobs = new LinkedHashMap<>();
+
+    public ProductImportServiceImpl(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                    CategoryRepository categoryRepository, ObjectMapper objectMapper,
+                                    ApplicationEventPublisher eventPublisher,
+                                    @Value("${app.import.max-size:50MB}") DataSize maxUploadSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.categoryRepository = categoryRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.maxUploadSize = maxUploadSize;
+    }
+
+    @Override
+    public ProductImportJobDTO startImport(InputStream content, String fileName, String format) {
+        ImportFormat importFormat = ImportFormat.resolve(format, fileName);
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), fileName, importFormat);
+        try {
+            job.upload = Files.createTempFile("product-import-", "." + importFormat.extension);
+            if (spool(content, job.upload) == 0) {
+                throw new IllegalArgumentException("Arquivo de importação vazio");
+            }
+            job.errorReport = Files.createTempFile("product-import-errors-", ".csv");
+        } catch (IOException e) {
+            job.deleteFiles();
+            throw new IllegalArgumentException("Não foi possível ler o arquivo enviado", e);
+        } catch (IllegalArgumentException e) {
+            job.deleteFiles();
+            throw e;
+        }
+
+        register(job);
+        importExecutor.execute(() -> run(job));
+        return job.toDTO();
+    }
+
+    @Override
+    public Optional<ProductImportJobDTO> getJob(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(ImportJob::toDTO);
+        }
+    }
+
+    @Override
+    public Optional<Path> getErrorReport(String jobId) {
+        synchronized (jobs) {
+            ImportJob job = jobs.get(jobId);
+            if (job == null || !job.status.isFinished()) {
+                return Optional.empty();
+            }
+            return Optional.ofNullable(job.errorReport);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
+    /**
+     * Copies the upload to disk, refusing it as soon as it passes the size
+     * limit rather than after the whole body has been read.
+     */
+    private long spool(InputStream content, Path target) throws IOException {
+        long limit = maxUploadSize.toBytes();
+        long copied = 0;
+        byte[] buffer = new byte[64 * 1024];
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int read;
+            while ((read = content.read(buffer)) != -1) {
+                copied += read;
+                if (copied > limit) {
+                    throw new IllegalArgumentException(
+                        "Arquivo de importação maior que o limite de " + maxUploadSize.toMegabytes() + "MB");
+                }
+                out.write(buffer, 0, read);
+            }
+        }
+        return copied;
+    }
+
+    private void register(ImportJob job) {
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+            Iterator<ImportJob> oldest = jobs.values().iterator();
+            while (jobs.size() > MAX_RETAINED_JOBS && oldest.hasNext()) {
+                ImportJob candidate = oldest.next();
+                if (candidate.status.isFinished()) {
+                    candidate.deleteFiles();
+                    oldest.remove();
+                }
+            }
+        }
+    }
+
+    private void run(ImportJob job) {
+        job.status = ImportJobStatus.RUNNING;
+        job.startedAt = LocalDateTime.now();
+        boolean succeeded = false;
+        try {
+            importRows(job);
+            succeeded = true;
+        } catch (IOException | RuntimeException e) {
+            logger.error("Product import {} failed", job.id, e);
+            job.message = e.getMessage();
+        } finally {
+            deleteQuietly(job.upload);
+        }
+
+        // Batches already committed stay imported even when a later step failed
+        if (job.imported.get() > 0) {
+            try {
+                eventPublisher.publishEvent(new ProductsImportedEvent(job.imported.get()));
+            } catch (RuntimeException e) {
+                logger.error("Catalog refresh after product import {} failed", job.id, e);
+            }
+        }
+
+        job.finishedAt = LocalDateTime.now();
+        job.status = succeeded ? ImportJobStatus.COMPLETED : ImportJobStatus.FAILED;
+        logger.info("Product import {} finished: {} imported, {} failed", job.id, job.imported.get(), job.failed.get());
+    }
+
+    private void importRows(ImportJob job) throws IOException {
+        Map<String, Long> categoryIds = new HashMap<>();
+        for (Category category : categoryRepository.findByActiveTrue()) {
+            categoryIds.put(SearchTextNormalizer.fold(category.getName().trim()), category.getId());
+        }
+        Date today = new Date(System.currentTimeMillis());
+
+        try (BufferedReader reader = Files.newBufferedReader(job.upload, StandardCharsets.UTF_8);
+             BufferedWriter errors = Files.newBufferedWriter(job.errorReport, StandardCharsets.UTF_8)) {
+            errors.write("line,error,content");
+            errors.newLine();
+
+            CsvHeader header = null;
+            List<PendingRow> batch = new ArrayList<>(BATCH_SIZE);
+            String line;
+            long lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+                    line = line.substring(1); // byte order mark written by spreadsheet exports
+                }
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (job.format == ImportFormat.CSV && header == null) {
+                    header = CsvHeader.parse(line);
+                    continue;
+                }
+
+                job.processed.incrementAndGet();
+                try {
+                    Map<String, String> fields = job.format == ImportFormat.CSV ? header.read(line) : readJson(line);
+                    batch.add(new PendingRow(lineNumber, line, toInsertArgs(fields, categoryIds, today)));
+                } catch (IllegalArgumentException e) {
+                    reportError(job, errors, lineNumber, e.getMessage(), line);
+                }
+
+                if (batch.size() >= BATCH_SIZE) {
+                    flush(job, batch, errors);
+                }
+            }
+            flush(job, batch, errors);
+        }
+    }
+
+    private void flush(ImportJob job, List<PendingRow> batch, BufferedWriter errors) throws IOException {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Object[]> args = batch.stream().map(row -> row.args).toList();
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, args));
+            job.imported.addAndGet(batch.size());
+        } catch (DataAccessException batchFailure) {
+            // Find the offending rows by retrying the batch one row at a time
+            for (PendingRow row : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_PRODUCT_SQL, row.args));
+                    job.imported.incrementAndGet();
+                } catch (DataAccessException rowFailure) {
+                    reportError(job, errors, row.lineNumber, rowFailure.getMostSpecificCause().getMessage(), row.content);
+                }
+            }
+        }
+        batch.clear();
+    }
+
+    private Map<String, String> readJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido");
+        }
+        if (node == null || !node.isObject()) {
+            throw new IllegalArgumentException("Cada linha deve ser um objeto JSON");
+        }
+        Map<String, String> fields = new HashMap<>();
+        node.fields().forEachRemaining(entry -> {
+            if (!entry.getValue().isNull()) {
+                fields.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue().asText());
+            }
+        });
+        return fields;
+    }
+
+    private Object[] toInsertArgs(Map<String, String> fields, Map<String, Long> categoryIds, Date today) {
+        String name = requireText(fields, "name", "Nome é obrigatório");
+        String description = requireText(fields, "description", "Descrição é obrigatória");
+        BigDecimal price = parsePrice(fields.get("price"));
+        int stock = parseStock(fields.get("stock"));
+        String imageUrl = blankToNull(fields.get("imageurl"));
+        if (imageUrl != null && imageUrl.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("URL da imagem excede " + MAX_TEXT_LENGTH + " caracteres");
+        }
+        Long categoryId = resolveCategory(fields, categoryIds);
+        boolean active = parseBoolean(fields.get("active"), true);
+        boolean featured = parseBoolean(fields.get("featured"), false);
+
+        return new Object[] { name, description, price, stock, imageUrl, categoryId, active, featured, today, today };
+    }
+
+    private static String requireText(Map<String, String> fields, String key, String message) {
+        String value = blankToNull(fields.get(key));
+        if (value == null) {
+            throw new IllegalArgumentException(message);
+        }
+        if (key.equals("name") && value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException("Nome excede " + MAX_TEXT_LENGTH + " caracteres");
+        }
+        return value;
+    }
+
+    private static Long resolveCategory(Map<String, String> fields, Map<String, Long> categoryIds) {
+        String idValue = blankToNull(fields.get("categoryid"));
+        if (idValue != null) {
+            try {
+                Long id = Long.valueOf(idValue);
+                if (categoryIds.containsValue(id)) {
+                    return id;
+                }
+            } catch (NumberFormatException e) {
+                // reported below
+            }
+            throw new IllegalArgumentException("Categoria não encontrada: " + idValue);
+        }
+
+        String name = blankToNull(fields.get("category"));
+        if (name == null) {
+            throw new IllegalArgumentException("Categoria é obrigatória");
+        }
+        Long id = categoryIds.get(SearchTextNormalizer.fold(name));
+        if (id == null) {
+            throw new IllegalArgumentException("Categoria não encontrada: " + name);
+        }
+        return id;
+    }
+
+    /**
+     * Accepts "1234.56" as well as the Brazilian "1.234,56".
+     */
+    private static BigDecimal parsePrice(String value) {
+        String text = blankToNull(value);
+        if (text == null) {
+            throw new IllegalArgumentException("Preço é obrigatório");
+        }
+        text = text.replace("R$", "").trim();
+        if (text.contains(",")) {
+            text = text.replace(".", "").replace(',', '.');
+        }
+        BigDecimal price;
+        try {
+            price = new BigDecimal(text).setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Preço inválido: " + value);
+        }
+        if (price.signum() <= 0 || price.compareTo(MAX_PRICE) > 0) {
+            throw new IllegalArgumentException("Preço fora do intervalo permitido: " + value);
+        }
+        return price;
+    }
+
+    private static int parseStock(String value) {
+        String text = blankToNull(value);
+        if (text == null) {
+            return 0;
+        }
+        try {
+            int stock = Integer.parseInt(text);
+            if (stock < 0) {
+                throw new IllegalArgumentException("Estoque não pode ser negativo");
+            }
+            return stock;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Estoque inválido: " + value);
+        }
+    }
+
+    private static boolean parseBoolean(String value, boolean defaultValue) {
+        String text = blankToNull(value);
+        if (text == null) {
+            return defaultValue;
+        }
+        return switch (SearchTextNormalizer.fold(text)) {
+            case "true", "1", "sim", "s", "yes" -> true;
+            case "false", "0", "nao", "n", "no" -> false;
+            default -> throw new IllegalArgumentException("Valor booleano inválido: " + value);
+        };
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    private static void reportError(ImportJob job, BufferedWriter errors, long lineNumber, String error, String content) throws IOException {
+        job.failed.incrementAndGet();
+        errors.write(lineNumber + "," + CsvHeader.quote(error) + "," + CsvHeader.quote(content));
+        errors.newLine();
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete temporary import file {}", path, e);
+        }
+    }
+
+    private enum ImportFormat {
+        CSV("csv"),
+        JSONL("jsonl");
+
+        private final String extension;
+
+        ImportFormat(String extension) {
+            this.extension = extension;
+        }
+
+        // The explicit format wins; the file name's extension is the fallback
+        static ImportFormat resolve(String format, String fileName) {
+            for (String hint : new String[] {format, fileName}) {
+                String lower = hint == null ? "" : hint.toLowerCase(Locale.ROOT);
+                if (lower.endsWith("csv")) {
+                    return CSV;
+                }
+                if (lower.endsWith("jsonl") || lower.endsWith("ndjson") || lower.endsWith("json")) {
+                    return JSONL;
+                }
+            }
+            throw new IllegalArgumentException("Formato de importação não suportado; use CSV ou JSON lines");
+        }
+    }
+
+    private static final class PendingRow {
+        private final long lineNumber;
+        private final String content;
+        private final Object[] args;
+
+        private PendingRow(long lineNumber, String content, Object[] args) {
+            this.lineNumber = lineNumber;
+            this.content = content;
+            this.args = args;
+        }
+    }
+
+    /**
+     * Column positions from the CSV header line. Both ',' and the ';' used by
+     * Brazilian spreadsheet exports are accepted as delimiters; quoted fields
+     * may contain the delimiter and doubled quotes, but not line breaks.
+     */
+    private static final class CsvHeader {
+        private final char delimiter;
+        private final List<String> columns;
+
+        private CsvHeader(char delimiter, List<String> columns) {
+            this.delimiter = delimiter;
+            this.columns = columns;
+        }
+
+        static CsvHeader parse(String line) {
+            char delimiter = line.indexOf(';') >= 0 && line.indexOf(',') < 0 ? ';' : ',';
+            List<String> columns = split(line, delimiter).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList();
+            if (!columns.contains("name") || !columns.contains("price")) {
+                throw new IllegalArgumentException("Cabeçalho CSV deve conter ao menos as colunas name e price");
+            }
+            return new CsvHeader(delimiter, columns);
+        }
+
+        Map<String, String> read(String line) {
+            List<String> values = split(line, delimiter);
+            if (values.size() > columns.size()) {
+                throw new IllegalArgumentException("Linha com mais colunas que o cabeçalho");
+            }
+            Map<String, String> fields = new HashMap<>();
+            for (int i = 0; i < values.size(); i++) {
+                fields.put(columns.get(i), values.get(i));
+            }
+            return fields;
+        }
+
+        static List<String> split(String line, char delimiter) {
+            List<String> values = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == delimiter) {
+                    values.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("Aspas não fechadas");
+            }
+            values.add(current.toString());
+            return values;
+        }
+
+        static String quote(String value) {
+            String text = value == null ? "" : value;
+            return '"' + text.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private static final class ImportJob {
+        private final String id;
+        private final String fileName;
+        private final ImportFormat format;
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong imported = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile ImportJobStatus status = ImportJobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String message;
+        private Path upload;
+        private Path errorReport;
+
+        private ImportJob(String id, String fileName, ImportFormat format) {
+            this.id = id;
+            this.fileName = fileName;
+            this.format = format;
+        }
+
+        ProductImportJobDTO toDTO() {
+            return new ProductImportJobDTO(id, fileName, format.name(), status, processed.get(), imported.get(),
+                failed.get(), startedAt, finishedAt, message);
+        }
+
+        void deleteFiles() {
+            deleteQuietly(upload);
+            deleteQuietly(errorReport);
+        }
+    }
+}
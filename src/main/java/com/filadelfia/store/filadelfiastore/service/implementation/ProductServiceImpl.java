@@ -1,27 +1,48 @@
 package com.filadelfia.store.filadelfiastore.service.implementation;
 
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
 import com.filadelfia.store.filadelfiastore.exception.custom.ResourceNotFoundException;
 import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryNodeDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.FacetedSearchResultDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductFacetQuery;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductSliceDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.SuggestionDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.Product;
 import com.filadelfia.store.filadelfiastore.model.mapper.CategoryMapper;
 import com.filadelfia.store.filadelfiastore.model.mapper.ProductMapper;
+import com.filadelfia.store.filadelfiastore.repository.CategoryRepository;
 import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.service.cache.CatalogCache;
+import com.filadelfia.store.filadelfiastore.service.cache.FeaturedProductsSnapshot;
 import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
 import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import com.filadelfia.store.filadelfiastore.service.search.ProductFacetIndex;
+import com.filadelfia.store.filadelfiastore.service.search.ProductSearchIndex;
+import com.filadelfia.store.filadelfiastore.service.search.SearchHit;
+import com.filadelfia.store.filadelfiastore.service.search.SuggestionIndex;
+import com.filadelfia.store.filadelfiastore.util.KeysetCursor;
 import com.filadelfia.store.filadelfiastore.util.PageableValidator;
 
 import org.springframework.web.multipart.MultipartFile;
 
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,46 +50,49 @@ public class ProductServiceImpl implements ProductService  {
 
     private final ProductRepository productRepository;
     private final CategoryService categoryService;
+    private final CategoryRepository categoryRepository;
     private final ProductMapper productMapper;
     private final CategoryMapper categoryMapper;
     private final PageableValidator pageableValidator;
     private final com.filadelfia.store.filadelfiastore.service.interfaces.FileStorageService fileStorageService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogCache catalogCache;
+    private final FeaturedProductsSnapshot featuredProductsSnapshot;
+    private final ProductFacetIndex productFacetIndex;
+    private final SuggestionIndex suggestionIndex;
+
+    private static final int MAX_SLICE_SIZE = 100;
 
     private final Set<String> ALLOWED_SORT_PROPERTIES = Set.of(
         "id", "name", "price", "createdAt", "updatedAt", "category"
     );
 
-    public ProductServiceImpl(ProductRepository productRepository, CategoryService categoryService, ProductMapper productMapper, CategoryMapper categoryMapper, PageableValidator pageableValidator, com.filadelfia.store.filadelfiastore.service.interfaces.FileStorageService fileStorageService) {
+    public ProductServiceImpl(ProductRepository productRepository, CategoryService categoryService, ProductMapper productMapper, CategoryMapper categoryMapper, PageableValidator pageableValidator, com.filadelfia.store.filadelfiastore.service.interfaces.FileStorageService fileStorageService, ProductSearchIndex productSearchIndex, ApplicationEventPublisher eventPublisher, CatalogCache catalogCache, FeaturedProductsSnapshot featuredProductsSnapshot, ProductFacetIndex productFacetIndex, SuggestionIndex suggestionIndex, CategoryRepository categoryRepository) {
         this.productRepository = productRepository;
         this.categoryService = categoryService;
         this.productMapper = productMapper;
         this.categoryMapper = categoryMapper;
         this.pageableValidator = pageableValidator;
         this.fileStorageService = fileStorageService;
+        this.productSearchIndex = productSearchIndex;
+        this.eventPublisher = eventPublisher;
+        this.catalogCache = catalogCache;
+        this.featuredProductsSnapshot = featuredProductsSnapshot;
+        this.productFacetIndex = productFacetIndex;
+        this.suggestionIndex = suggestionIndex;
+        this.categoryRepository = categoryRepository;
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getAllActiveProducts() {
-        return productRepository.findByActiveTrue()
-            .stream()
-            .map(productMapper::toDTO)
-            .collect(Collectors.toList());
+        return productRepository.findActiveDetails();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<ProductDTO> getFeaturedProducts() {
-        List<Product> featuredProducts = productRepository.findByActiveTrueAndFeaturedTrueOrderByUpdatedAtDesc();
-        
-        // If no featured products exist, fallback to latest products
-        if (featuredProducts.isEmpty()) {
-            featuredProducts = productRepository.findTop4ByActiveTrueOrderByIdDesc();
-        }
-        
-        return featuredProducts.stream()
-            .map(productMapper::toDTO)
-            .collect(Collectors.toList());
+        return featuredProductsSnapshot.get();
     }
 
     @Override
@@ -89,16 +113,13 @@ public class ProductServiceImpl implements ProductService  {
         product.setFeatured(featured);
         Product savedProduct = productRepository.save(product);
         
-        return productMapper.toDTO(savedProduct);
+        return publishChange(savedProduct);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getProductsByCategory(String categoryName) {
-        return productRepository.findByCategoryNameAndActiveTrue(categoryName)
-            .stream()
-            .map(productMapper::toDTO)
-            .collect(Collectors.toList());
+        return productRepository.findActiveSummariesByCategoryName(categoryName);
     }
 
     @Override
@@ -115,26 +136,143 @@ public class ProductServiceImpl implements ProductService  {
             sanitizedTerm = sanitizedTerm.substring(0, 100);
         }
         
-        return productRepository.findByNameOrDescriptionContainingIgnoreCaseAndActiveTrue(sanitizedTerm)
+        // Fall back to the LIKE scan only while the index is still being built
+        if (!productSearchIndex.isReady()) {
+            return productRepository.findByNameOrDescriptionContainingIgnoreCaseAndActiveTrue(sanitizedTerm)
+                .stream()
+                .map(productMapper::toDTO)
+                .collect(Collectors.toList());
+        }
+
+        List<Long> rankedIds = productSearchIndex.search(sanitizedTerm)
             .stream()
-            .map(productMapper::toDTO)
-            .collect(Collectors.toList());
+            .map(SearchHit::getProductId)
+            .toList();
+        // API clients and the admin list get the whole description, as without a term
+        return loadInOrder(rankedIds, productRepository::findActiveDetailsByIdIn);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductSliceDTO getProductsByCategory(String categoryName, String cursor, int size) {
+        Optional<CategoryNodeDTO> category = categoryService.getCategoryNode(categoryName);
+        if (category.isEmpty()) {
+            return new ProductSliceDTO();
+        }
+        // Browsing a category includes everything below it
+        String pathPrefix = category.get().getPath() + "%";
+        int pageSize = clampSliceSize(size);
+        // Fetch one extra row to learn whether another page exists without a second query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<ProductDTO> rows = KeysetCursor.decode(cursor)
+            .map(after -> productRepository.findActiveByCategoryPathAfter(pathPrefix, after.getSortKey(), after.getId(), limit))
+            .orElseGet(() -> productRepository.findActiveByCategoryPathFirstPage(pathPrefix, limit));
+
+        boolean hasNext = rows.size() > pageSize;
+        List<ProductDTO> items = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ProductDTO last = items.get(items.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getName(), last.getId());
+        }
+        // The tree's maintained subtree counter, rather than a COUNT over the subtree on every page
+        return new ProductSliceDTO(items, nextCursor, category.get().getProductCount());
+    }
+
+    /**
+     * Neighbours of the product in its category's (name, id) order, wrapping
+     * around to the start of the category when the product is near the end.
+     * At most two index seeks bounded by the limit, whatever the category size.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductDTO> getRelatedProducts(ProductDTO product, int limit) {
+        if (product == null || product.getCategoryId() == null || limit <= 0) {
+            return List.of();
+        }
+
+        Long categoryId = product.getCategoryId();
+        List<ProductDTO> related = new ArrayList<>(productRepository.findActiveByCategoryIdAfter(
+            categoryId, product.getName(), product.getId(), PageRequest.of(0, limit)));
+
+        if (related.size() < limit) {
+            // One extra row in case the product itself is among the first ones
+            Set<Long> seen = related.stream().map(ProductDTO::getId).collect(Collectors.toSet());
+            seen.add(product.getId());
+            for (ProductDTO candidate : productRepository.findActiveByCategoryIdFirstPage(categoryId, PageRequest.of(0, limit + 1))) {
+                if (related.size() == limit) {
+                    break;
+                }
+                if (seen.add(candidate.getId())) {
+                    related.add(candidate);
+                }
+            }
+        }
+        return related;
+    }
+
+    @Override
+    public FacetedSearchResultDTO searchWithFacets(ProductFacetQuery query) {
+        return productFacetIndex.search(query);
+    }
+
+    @Override
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        int size = Math.min(Math.max(limit, 1), SuggestionIndex.MAX_SUGGESTIONS);
+        return suggestionIndex.suggest(query, size);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductSliceDTO searchProducts(String searchTerm, String cursor, int size) {
+        int pageSize = clampSliceSize(size);
+        String sanitizedTerm = searchTerm == null ? "" : searchTerm.trim();
+        if (sanitizedTerm.length() > 100) {
+            sanitizedTerm = sanitizedTerm.substring(0, 100);
+        }
+        if (sanitizedTerm.isEmpty()) {
+            return new ProductSliceDTO();
+        }
+
+        if (!productSearchIndex.isReady()) {
+            // Index still warming up: serve a bounded first page from the LIKE query
+            List<ProductDTO> items = productRepository
+                .findByNameOrDescriptionContainingIgnoreCaseAndActiveTrue(sanitizedTerm, PageRequest.of(0, pageSize))
+                .stream()
+                .map(productMapper::toDTO)
+                .collect(Collectors.toList());
+            return new ProductSliceDTO(items, null, items.size());
+        }
+
+        List<SearchHit> hits = productSearchIndex.search(sanitizedTerm);
+        int start = KeysetCursor.decode(cursor)
+            .map(after -> firstHitAfter(hits, after))
+            .orElse(0);
+        int end = Math.min(start + pageSize, hits.size());
+
+        List<SearchHit> page = hits.subList(start, end);
+        String nextCursor = null;
+        if (end < hits.size()) {
+            SearchHit last = page.get(page.size() - 1);
+            nextCursor = KeysetCursor.encode(Float.toString(last.getScore()), last.getProductId());
+        }
+
+        List<Long> pageIds = page.stream().map(SearchHit::getProductId).toList();
+        return new ProductSliceDTO(loadInOrder(pageIds, productRepository::findActiveSummariesByIdIn), nextCursor, hits.size());
     }
 
     @Override
     @Transactional(readOnly = true)
     public Optional<ProductDTO> getProductById(Long id) {
-        return productRepository.findById(id)
-            .map(productMapper::toDTO);
+        return catalogCache.getProduct(id, key -> productRepository.findById(key)
+            .map(productMapper::toDTO));
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getAllByCategoryName(String categoryName) {
-        return productRepository.findByCategoryNameAndActiveTrue(categoryName)
-            .stream()
-            .map(productMapper::toDTO)
-            .collect(Collectors.toList());
+        return productRepository.findActiveSummariesByCategoryName(categoryName);
     }
 
     @Override
@@ -145,16 +283,14 @@ public class ProductServiceImpl implements ProductService  {
         Product product = productMapper.toEntity(request);
         product.setCategory(categoryMapper.toEntity(category));
         Product savedProduct = productRepository.save(product);
-        return productMapper.toDTO(savedProduct);
+        updateCategoryCounters(CounterState.NONE, CounterState.of(savedProduct));
+        return publishChange(savedProduct);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getAllProducts() {
-        return productRepository.findAll()
-            .stream()
-            .map(productMapper::toDTO)
-            .collect(Collectors.toList());
+        return productRepository.findAllSummaries();
     }
 
     @Override
@@ -166,8 +302,8 @@ public class ProductServiceImpl implements ProductService  {
             "name"
         );
         
-        return productRepository.findAll(safePageable)
-            .map(productMapper::toDTO);
+        // API clients get the full description, so only the entity mapping is skipped here
+        return productRepository.findAllDetails(safePageable);
     }
 
     @Override
@@ -177,6 +313,7 @@ public class ProductServiceImpl implements ProductService  {
             .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
         CategoryDTO category = categoryService.getCategoryById(request.getCategoryId())
             .orElseThrow(() -> new ResourceNotFoundException("Categoria não encontrada"));
+        CounterState before = CounterState.of(existing);
 
         existing.setCategory(categoryMapper.toEntity(category));
         existing.setUpdatedAt(new java.sql.Date(System.currentTimeMillis()));
@@ -184,7 +321,8 @@ public class ProductServiceImpl implements ProductService  {
         // Copy properties from request to existing entity, ignoring id and password
         BeanUtils.copyProperties(request, existing, "id", "createdAt");
         Product updated = productRepository.save(existing);
-        return productMapper.toDTO(updated);
+        updateCategoryCounters(before, CounterState.of(updated));
+        return publishChange(updated);
     }
 
     @Override
@@ -193,9 +331,12 @@ public class ProductServiceImpl implements ProductService  {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
         
+        CounterState before = CounterState.of(product);
         product.setActive(false);
         product.setUpdatedAt(new java.sql.Date(System.currentTimeMillis()));
-        productRepository.save(product);
+        Product saved = productRepository.save(product);
+        updateCategoryCounters(before, CounterState.of(saved));
+        publishChange(saved);
     }
 
     @Override
@@ -204,9 +345,12 @@ public class ProductServiceImpl implements ProductService  {
         Product product = productRepository.findById(id)
             .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
         
+        CounterState before = CounterState.of(product);
         product.setActive(true);
         product.setUpdatedAt(new java.sql.Date(System.currentTimeMillis()));
-        productRepository.save(product);
+        Product saved = productRepository.save(product);
+        updateCategoryCounters(before, CounterState.of(saved));
+        publishChange(saved);
     }
 
     @Override
@@ -218,10 +362,7 @@ public class ProductServiceImpl implements ProductService  {
     @Override
     @Transactional(readOnly = true)
     public List<ProductDTO> getLowStockProducts(int threshold) {
-        return productRepository.findByActiveTrueAndStockLessThan(threshold)
-            .stream()
-            .map(productMapper::toDTO)
-            .collect(Collectors.toList());
+        return productRepository.findActiveSummariesWithStockBelow(threshold);
     }
 
     @Override
@@ -275,7 +416,7 @@ public class ProductServiceImpl implements ProductService  {
             product.setUpdatedAt(new java.sql.Date(System.currentTimeMillis()));
             
             Product savedProduct = productRepository.save(product);
-            return productMapper.toDTO(savedProduct);
+            return publishChange(savedProduct);
 
         } catch (Exception e) {
             throw new RuntimeException("Failed to update product image: " + e.getMessage(), e);
@@ -297,7 +438,7 @@ public class ProductServiceImpl implements ProductService  {
             if (deleted) {
                 product.setImageUrl(null);
                 product.setUpdatedAt(new java.sql.Date(System.currentTimeMillis()));
-                productRepository.save(product);
+                publishChange(productRepository.save(product));
             }
             return deleted;
         } catch (Exception e) {
@@ -318,4 +459,96 @@ public class ProductServiceImpl implements ProductService  {
         return fileStorageService.fileExists(product.getImageUrl());
     }
 
-}
\ No newline at end of file
+    private int clampSliceSize(int size) {
+        return size <= 0 ? 20 : Math.min(size, MAX_SLICE_SIZE);
+    }
+
+    private int firstHitAfter(List<SearchHit> hits, KeysetCursor after) {
+        float seekScore;
+        try {
+            seekScore = Float.parseFloat(after.getSortKey());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+        for (int i = 0; i < hits.size(); i++) {
+            if (hits.get(i).isAfter(seekScore, after.getId())) {
+                return i;
+            }
+        }
+        return hits.size();
+    }
+
+    /**
+     * Loads the given products with a single IN query, summaries for shop
+     * cards or details for full views, and returns the active ones in the
+     * order of the ids.
+     */
+    private List<ProductDTO> loadInOrder(List<Long> ids, Function<Collection<Long>, List<ProductDTO>> activeByIdIn) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ProductDTO> productsById = activeByIdIn.apply(ids)
+            .stream()
+            .collect(Collectors.toMap(ProductDTO::getId, Function.identity()));
+
+        return ids.stream()
+            .map(productsById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Moves the product's contribution to the category counters from its
+     * state before the write to its state after, inside the same transaction.
+     */
+    private void updateCategoryCounters(CounterState before, CounterState after) {
+        if (Objects.equals(before.categoryId, after.categoryId)) {
+            long activeDelta = after.active - before.active;
+            long inStockDelta = after.inStock - before.inStock;
+            if (after.categoryId != null && (activeDelta != 0 || inStockDelta != 0)) {
+                categoryRepository.adjustProductCounters(after.categoryId, activeDelta, inStockDelta);
+            }
+            return;
+        }
+        if (before.categoryId != null && (before.active != 0 || before.inStock != 0)) {
+            categoryRepository.adjustProductCounters(before.categoryId, -before.active, -before.inStock);
+        }
+        if (after.categoryId != null && (after.active != 0 || after.inStock != 0)) {
+            categoryRepository.adjustProductCounters(after.categoryId, after.active, after.inStock);
+        }
+    }
+
+    /**
+     * Maps the saved product and announces the change so in-memory read models
+     * (search index and friends) can update once the transaction commits.
+     */
+    private ProductDTO publishChange(Product product) {
+        ProductDTO dto = productMapper.toDTO(product);
+        eventPublisher.publishEvent(new ProductChangedEvent(dto));
+        return dto;
+    }
+
+    /**
+     * What a product contributes to its category's counters.
+     */
+    private static final class CounterState {
+        private static final CounterState NONE = new CounterState(null, 0, 0);
+
+        private final Long categoryId;
+        private final int active;
+        private final int inStock;
+
+        private CounterState(Long categoryId, int active, int inStock) {
+            this.categoryId = categoryId;
+            this.active = active;
+            this.inStock = inStock;
+        }
+
+        static CounterState of(Product product) {
+            boolean active = Boolean.TRUE.equals(product.getActive());
+            boolean inStock = active && product.getStock() != null && product.getStock() > 0;
+            Long categoryId = product.getCategory() != null ? product.getCategory().getId() : null;
+            return new CounterState(categoryId, active ? 1 : 0, inStock ? 1 : 0);
+        }
+    }
+}
@@ -2,9 +2,14 @@ package com.filadelfia.store.filadelfiastore.service.interfaces;
 
 import com.filadelfia.store.filadelfiastore.model.dto.CartDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemUpdateDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutValidationDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
 import com.filadelfia.store.filadelfiastore.model.entity.Cart;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface CartService {
@@ -20,8 +25,19 @@ public interface CartService {
     CartItemDTO addItemToCart(Long userId, Long productId, Integer quantity);
     CartItemDTO updateCartItemQuantity(Long userId, Long productId, Integer quantity);
     void removeItemFromCart(Long userId, Long productId);
+    CartDTO updateCartItems(Long userId, List<CartItemUpdateDTO> changes);
     List<CartItemDTO> getCartItems(Long userId);
     
+    // Products about to enter a cart, loaded together; any unknown id rejects the batch
+    Map<Long, ProductDTO> requireProducts(Collection<Long> productIds);
+    
+    // Guest carts (product id -> quantity, kept outside the database)
+    CartDTO getGuestCart(Map<Long, Integer> quantities);
+    void mergeGuestCart(Long userId, Map<Long, Integer> quantities);
+    
+    // Checkout: reprices the cart and flags unavailable lines
+    CheckoutValidationDTO validateForCheckout(Long userId);
+    
     // Cart calculations
     Integer getTotalItemsInCart(Long userId);
     Double getCartTotal(Long userId);
@@ -8,10 +8,11 @@ import org.springframework.data.domain.Pageable;
 
 import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.CategoryDetailedDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryNodeDTO;
 
 public interface CategoryService {
     CategoryDTO createCategory(CategoryDTO request);
-    Optional<CategoryDetailedDTO> getCategoryDetailedById(Long id);
+    Optional<CategoryDetailedDTO> getCategoryDetailedById(Long id, String cursor, int size);
     Optional<CategoryDTO> getCategoryById(Long id);
     List<CategoryDTO> getAllCategories();
     Page<CategoryDTO> getAllCategories(Pageable pageable);
@@ -20,4 +21,7 @@ public interface CategoryService {
 
     List<CategoryDTO> searchCategories(String searchTerm);
     List<CategoryDTO> getAllActiveCategories();
+
+    List<CategoryNodeDTO> getCategoryTree();
+    Optional<CategoryNodeDTO> getCategoryNode(String name);
 }
\ No newline at end of file
@@ -184,6 +184,12 @@ public interface PaymentService {
      */
     List<Payment> processExpiredPayments();
     
+    /**
+     * Cancel pending orders placed before the given day that have no live
+     * payment, releasing their reserved stock
+     */
+    List<Order> cancelAbandonedOrders(java.sql.Date placedBefore);
+    
     /**
      * Process payments requiring confirmation
      */
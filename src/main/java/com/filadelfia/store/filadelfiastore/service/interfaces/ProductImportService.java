@@ -0,0 +1,13 @@
+package com.filadelfia.store.filadelfiastore.service.interfaces;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import com.filadelfia.store.filadelfiastore.model.dto.ProductImportJobDTO;
+
+public interface ProductImportService {
+    ProductImportJobDTO startImport(InputStream content, String fileName, String format);
+    Optional<ProductImportJobDTO> getJob(String jobId);
+    Optional<Path> getErrorReport(String jobId);
+}
@@ -6,7 +6,11 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import com.filadelfia.store.filadelfiastore.model.dto.FacetedSearchResultDTO;
 import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductFacetQuery;
+import com.filadelfia.store.filadelfiastore.model.dto.SuggestionDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductSliceDTO;
 
 public interface ProductService {    
     ProductDTO createProduct(ProductDTO request);
@@ -22,6 +26,15 @@ public interface ProductService {
     List<ProductDTO> getProductsByCategory(String categoryName);
     List<ProductDTO> searchProducts(String searchTerm);
     List<ProductDTO> getFeaturedProducts();
+
+    // Keyset (cursor) pagination for the shop listings
+    ProductSliceDTO getProductsByCategory(String categoryName, String cursor, int size);
+    ProductSliceDTO searchProducts(String searchTerm, String cursor, int size);
+    List<ProductDTO> getRelatedProducts(ProductDTO product, int limit);
+
+    // Faceted browsing over the in-memory catalog
+    FacetedSearchResultDTO searchWithFacets(ProductFacetQuery query);
+    List<SuggestionDTO> suggest(String query, int limit);
     
     // Featured products management
     ProductDTO setProductFeatured(Long id, Boolean featured);
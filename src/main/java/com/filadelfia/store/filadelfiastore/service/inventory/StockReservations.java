@@ -0,0 +1,138 @@
+package com.filadelfia.store.filadelfiastore.service.inventory;
+
+import com.filadelfia.store.filadelfiastore.event.StockChangedEvent;
+import com.filadelfia.store.filadelfiastore.exception.custom.InsufficientStockException;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.Order;
+import com.filadelfia.store.filadelfiastore.model.entity.OrderItem;
+import com.filadelfia.store.filadelfiastore.repository.CategoryRepository;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Takes ordered quantities out of product stock and puts them back.
+ *
+ * Each line is a conditional UPDATE that only succeeds while enough stock
+ * is left, so two buyers can never both take the last unit. The lines of an
+ * order go out as one JDBC batch in product id order, so concurrent
+ * checkouts lock the product rows in the same order and no table is locked.
+ * A release first claims the order's reserved flag with a conditional
+ * UPDATE, so when a cancellation and the expiry sweep meet on one order only
+ * one of them puts the stock back. Both operations join the caller's
+ * transaction.
+ */
+@Component
+public class StockReservations {
+
+    private static final String RESERVE_SQL = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String RELEASE_SQL = "UPDATE products SET stock = stock + ? WHERE id = ?";
+    private static final String CLAIM_RELEASE_SQL = "UPDATE orders SET stock_reserved = false WHERE id = ? AND stock_reserved = true";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public StockReservations(JdbcTemplate jdbcTemplate, ProductRepository productRepository,
+                             CategoryRepository categoryRepository, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Reserves every line of the order or none: a short line throws, and the
+     * rollback of the caller's transaction returns the lines already taken.
+     */
+    public void reserve(Order order) {
+        Map<Long, Integer> quantities = quantitiesOf(order);
+        List<Object[]> lines = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> lines.add(new Object[] {quantity, productId, quantity}));
+
+        int[] updated = jdbcTemplate.batchUpdate(RESERVE_SQL, lines);
+
+        List<Long> shortProductIds = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                shortProductIds.add((Long) lines.get(i)[1]);
+            }
+        }
+        if (!shortProductIds.isEmpty()) {
+            throw new InsufficientStockException(namesOf(order, shortProductIds));
+        }
+
+        order.setStockReserved(true);
+        announce(quantities, -1);
+    }
+
+    /**
+     * Puts the quantities of a reserved order back. Orders placed before
+     * reservations existed, or already released, are left alone.
+     */
+    public void release(Order order) {
+        if (!Boolean.TRUE.equals(order.getStockReserved())) {
+            return;
+        }
+        // The loaded flag may be stale; only the caller that flips the row releases
+        boolean claimed = jdbcTemplate.update(CLAIM_RELEASE_SQL, order.getId()) == 1;
+        order.setStockReserved(false);
+        if (!claimed) {
+            return;
+        }
+        Map<Long, Integer> quantities = quantitiesOf(order);
+        List<Object[]> lines = new ArrayList<>();
+        quantities.forEach((productId, quantity) -> lines.add(new Object[] {quantity, productId}));
+
+        jdbcTemplate.batchUpdate(RELEASE_SQL, lines);
+        announce(quantities, 1);
+    }
+
+    // Sorted by product id, which fixes the order the rows are locked in
+    private Map<Long, Integer> quantitiesOf(Order order) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderItem item : order.getItems()) {
+            quantities.merge(item.getProduct().getId(), item.getQuantity(), Integer::sum);
+        }
+        return quantities;
+    }
+
+    private List<String> namesOf(Order order, List<Long> productIds) {
+        return order.getItems().stream()
+            .filter(item -> productIds.contains(item.getProduct().getId()))
+            .map(item -> item.getProduct().getName())
+            .distinct()
+            .toList();
+    }
+
+    /**
+     * The batch bypassed the persistence context, so the new stock is read
+     * back in one query. It moves the in-stock counters of the categories
+     * whose products crossed zero, and one event refreshes the views.
+     */
+    private void announce(Map<Long, Integer> quantities, int direction) {
+        if (quantities.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> inStockDeltas = new HashMap<>();
+        List<ProductDTO> products = productRepository.findDetailsByIdIn(quantities.keySet());
+        for (ProductDTO product : products) {
+            int quantity = quantities.get(product.getId());
+            boolean crossedZero = direction < 0 ? product.getStock() == 0 : product.getStock() == quantity;
+            if (crossedZero && Boolean.TRUE.equals(product.getActive()) && product.getCategoryId() != null) {
+                inStockDeltas.merge(product.getCategoryId(), (long) direction, Long::sum);
+            }
+        }
+        inStockDeltas.forEach((categoryId, delta) -> categoryRepository.adjustProductCounters(categoryId, 0, delta));
+        eventPublisher.publishEvent(new StockChangedEvent(products, !inStockDeltas.isEmpty()));
+    }
+}
@@ -0,0 +1,134 @@
+package com.filadelfia.store.filadelfiastore.service.maintenance;
+
+import com.filadelfia.store.filadelfiastore.repository.CartItemRepository;
+import com.filadelfia.store.filadelfiastore.repository.CartRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Deletes carts nobody touched for the retention period.
+ *
+ * Carts are walked in id order, one chunk per short transaction: the
+ * chunk's stale carts are locked, their items and then the carts go in two
+ * bulk DELETEs, and the locks are released before the next chunk. Live cart
+ * writes therefore wait at most one chunk, never the whole sweep.
+ */
+@Component
+public class AbandonedCartSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+    private final CartRepository cartRepository;
+    private final CartItemRepository cartItemRepository;
+    private final TransactionTemplate transaction;
+    private final int retentionDays;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder cartsPurged = new LongAdder();
+    private final LongAdder itemsPurged = new LongAdder();
+    private final LongAdder millisSpent = new LongAdder();
+    private volatile long lastRunMillis;
+    private volatile long lastRunCarts;
+
+    public AbandonedCartSweeper(CartRepository cartRepository, CartItemRepository cartItemRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.cart.sweeper.retention-days:30}") int retentionDays,
+                                @Value("${app.cart.sweeper.chunk-size:500}") int chunkSize) {
+        this.cartRepository = cartRepository;
+        this.cartItemRepository = cartItemRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.cart.sweeper.interval-ms:3600000}",
+               fixedDelayString = "${app.cart.sweeper.interval-ms:3600000}")
+    public void sweep() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        long started = System.nanoTime();
+        Date cutoff = new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(retentionDays));
+        long carts = 0;
+        long items = 0;
+        try {
+            long afterId = 0;
+            while (true) {
+                long from = afterId;
+                Chunk chunk = transaction.execute(status -> purgeChunk(from, cutoff));
+                if (chunk == null || chunk.lastId == from) {
+                    break;
+                }
+                carts += chunk.carts;
+                items += chunk.items;
+                afterId = chunk.lastId;
+            }
+        } catch (RuntimeException e) {
+            logger.error("Abandoned cart sweep stopped after {} carts", carts, e);
+        } finally {
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            runs.increment();
+            cartsPurged.add(carts);
+            itemsPurged.add(items);
+            millisSpent.add(elapsed);
+            lastRunMillis = elapsed;
+            lastRunCarts = carts;
+            running.set(false);
+        }
+        if (carts > 0) {
+            logger.info("Purged {} abandoned carts and {} items older than {} days", carts, items, retentionDays);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("retentionDays", retentionDays);
+        stats.put("chunkSize", chunkSize);
+        stats.put("runs", runs.sum());
+        stats.put("cartsPurged", cartsPurged.sum());
+        stats.put("itemsPurged", itemsPurged.sum());
+        stats.put("millisSpent", millisSpent.sum());
+        stats.put("lastRunMillis", lastRunMillis);
+        stats.put("lastRunCarts", lastRunCarts);
+        return stats;
+    }
+
+    private Chunk purgeChunk(long afterId, Date cutoff) {
+        List<Long> ids = cartRepository.lockAbandonedIds(afterId, cutoff, PageRequest.of(0, chunkSize));
+        if (ids.isEmpty()) {
+            return new Chunk(afterId, 0, 0);
+        }
+        int items = cartItemRepository.deleteByCartIdIn(ids);
+        int carts = cartRepository.deleteByIdIn(ids);
+        return new Chunk(ids.get(ids.size() - 1), carts, items);
+    }
+
+    private static final class Chunk {
+        private final long lastId;
+        private final int carts;
+        private final int items;
+
+        private Chunk(long lastId, int carts, int items) {
+            this.lastId = lastId;
+            this.carts = carts;
+            this.items = items;
+        }
+    }
+}
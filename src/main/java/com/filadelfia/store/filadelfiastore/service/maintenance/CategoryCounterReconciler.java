@@ -0,0 +1,50 @@
+package com.filadelfia.store.filadelfiastore.service.maintenance;
+
+import com.filadelfia.store.filadelfiastore.event.ProductsImportedEvent;
+import com.filadelfia.store.filadelfiastore.repository.CategoryRepository;
+import com.filadelfia.store.filadelfiastore.service.cache.CategoryTreeSnapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Repairs drift in the denormalized category product counters.
+ *
+ * Product writes keep the counters current through in-place increments;
+ * this job recomputes them from the products table at startup, after bulk
+ * imports (which bypass the service write paths) and periodically, so a
+ * missed or raced increment never lingers.
+ */
+@Component
+public class CategoryCounterReconciler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryCounterReconciler.class);
+
+    private final CategoryRepository categoryRepository;
+    private final CategoryTreeSnapshot categoryTreeSnapshot;
+    private final TransactionTemplate transaction;
+
+    public CategoryCounterReconciler(CategoryRepository categoryRepository, CategoryTreeSnapshot categoryTreeSnapshot,
+                                     PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.categoryTreeSnapshot = categoryTreeSnapshot;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(initialDelayString = "${app.catalog.counters.reconcile-interval-ms:3600000}",
+               fixedDelayString = "${app.catalog.counters.reconcile-interval-ms:3600000}")
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void reconcile() {
+        Integer repaired = transaction.execute(status -> categoryRepository.reconcileProductCounters());
+        if (repaired != null && repaired > 0) {
+            logger.info("Repaired product counters of {} categories", repaired);
+            categoryTreeSnapshot.refresh();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.filadelfia.store.filadelfiastore.service.maintenance;
+
+import com.filadelfia.store.filadelfiastore.model.entity.Order;
+import com.filadelfia.store.filadelfiastore.model.entity.Payment;
+import com.filadelfia.store.filadelfiastore.service.interfaces.PaymentService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Expires payments left pending past their deadline, and gives up on orders
+ * placed more than the unpaid window ago. Orders left without a live payment
+ * are cancelled, which puts their reserved stock back on sale.
+ */
+@Component
+public class ExpiredPaymentSweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExpiredPaymentSweeper.class);
+
+    private final PaymentService paymentService;
+
+    // Orders only record the day they were placed, so the window is whole days
+    private final int unpaidOrderDays;
+
+    public ExpiredPaymentSweeper(PaymentService paymentService,
+                                 @Value("${app.order.unpaid-timeout-days:2}") int unpaidOrderDays) {
+        this.paymentService = paymentService;
+        this.unpaidOrderDays = unpaidOrderDays;
+    }
+
+    @Scheduled(initialDelayString = "${app.payment.expiry.interval-ms:300000}",
+               fixedDelayString = "${app.payment.expiry.interval-ms:300000}")
+    public void sweep() {
+        try {
+            List<Payment> expired = paymentService.processExpiredPayments();
+            if (!expired.isEmpty()) {
+                logger.info("Expired {} pending payments", expired.size());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Expired payment sweep failed", e);
+        }
+        try {
+            Date cutoff = Date.valueOf(LocalDate.now().minusDays(unpaidOrderDays));
+            List<Order> abandoned = paymentService.cancelAbandonedOrders(cutoff);
+            if (!abandoned.isEmpty()) {
+                logger.info("Cancelled {} orders placed before {} and never paid", abandoned.size(), cutoff);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Abandoned order sweep failed", e);
+        }
+    }
+}
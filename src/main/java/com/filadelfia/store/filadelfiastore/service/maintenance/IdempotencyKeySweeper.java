@@ -0,0 +1,37 @@
+package com.filadelfia.store.filadelfiastore.service.maintenance;
+
+import com.filadelfia.store.filadelfiastore.service.idempotency.IdempotencyKeys;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Deletes idempotency keys past their time to live. Expired keys are also
+ * ignored when looked up, so this only keeps the table small.
+ */
+@Component
+public class IdempotencyKeySweeper {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyKeySweeper.class);
+
+    private final IdempotencyKeys idempotencyKeys;
+
+    public IdempotencyKeySweeper(IdempotencyKeys idempotencyKeys) {
+        this.idempotencyKeys = idempotencyKeys;
+    }
+
+    @Scheduled(initialDelayString = "${app.idempotency.sweep.interval-ms:3600000}",
+               fixedDelayString = "${app.idempotency.sweep.interval-ms:3600000}")
+    public void sweep() {
+        try {
+            int purged = idempotencyKeys.purgeExpired();
+            if (purged > 0) {
+                logger.info("Purged {} expired idempotency keys", purged);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Idempotency key sweep failed", e);
+        }
+    }
+}
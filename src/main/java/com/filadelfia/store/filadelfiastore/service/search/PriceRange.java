@@ -0,0 +1,50 @@
+package com.filadelfia.store.filadelfiastore.service.search;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import lombok.Getter;
+
+/**
+ * Fixed price buckets offered as a shop facet. Lower bounds are inclusive
+ * and upper bounds exclusive.
+ */
+@Getter
+public enum PriceRange {
+    UP_TO_25("0-25", "Até R$ 25", null, new BigDecimal("25")),
+    FROM_25_TO_50("25-50", "R$ 25 a R$ 50", new BigDecimal("25"), new BigDecimal("50")),
+    FROM_50_TO_100("50-100", "R$ 50 a R$ 100", new BigDecimal("50"), new BigDecimal("100")),
+    FROM_100_TO_200("100-200", "R$ 100 a R$ 200", new BigDecimal("100"), new BigDecimal("200")),
+    ABOVE_200("200+", "Acima de R$ 200", new BigDecimal("200"), null);
+
+    private final String key;
+    private final String label;
+    private final BigDecimal min;
+    private final BigDecimal max;
+
+    PriceRange(String key, String label, BigDecimal min, BigDecimal max) {
+        this.key = key;
+        this.label = label;
+        this.min = min;
+        this.max = max;
+    }
+
+    public static PriceRange of(BigDecimal price) {
+        BigDecimal value = price != null ? price : BigDecimal.ZERO;
+        for (PriceRange range : values()) {
+            if (range.max == null || value.compareTo(range.max) < 0) {
+                return range;
+            }
+        }
+        return ABOVE_200;
+    }
+
+    public static Optional<PriceRange> fromKey(String key) {
+        for (PriceRange range : values()) {
+            if (range.key.equals(key)) {
+                return Optional.of(range);
+            }
+        }
+        return Optional.empty();
+    }
+}
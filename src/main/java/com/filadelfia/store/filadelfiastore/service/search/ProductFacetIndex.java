@@ -0,0 +1,379 @@
+package com.filadelfia.store.filadelfiastore.service.search;
+
+import com.filadelfia.store.filadelfiastore.event.CategoryChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductsImportedEvent;
+import com.filadelfia.store.filadelfiastore.event.StockChangedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.FacetCountDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.FacetedSearchResultDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductFacetQuery;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.util.SearchTextNormalizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Columnar view of the active catalog for faceted browsing.
+ *
+ * Each facet is a flat array or bitset indexed by the product's position in
+ * name order, so a query filters the catalog and counts every facet value in
+ * a single pass without touching the database. Counts follow multi-select
+ * semantics: a product failing only one facet's filter still counts toward
+ * that facet's values, so customers see what widening the facet would add.
+ *
+ * Stock changes, published by every checkout, are patched into the current
+ * columns; other changes rebuild them on the next query. Changes that arrive
+ * while a rebuild reads the catalog are replayed onto what it read.
+ */
+@Component
+public class ProductFacetIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductFacetIndex.class);
+
+    public static final String CATEGORY_FACET = "category";
+    public static final String PRICE_FACET = "price";
+    public static final String IN_STOCK_FACET = "inStock";
+    public static final String FEATURED_FACET = "featured";
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final ProductRepository productRepository;
+    private final ProductSearchIndex productSearchIndex;
+
+    private final Map<Long, ProductDTO> documents = new ConcurrentHashMap<>();
+
+    // Rebuilt lazily on the first query after a change
+    private volatile Columns columns = Columns.build(List.of());
+    private volatile boolean stale = false;
+
+    private final Object rebuildLock = new Object();
+    // Non-null while a rebuild runs; guarded by this
+    private List<Consumer<Map<Long, ProductDTO>>> pendingChanges;
+
+    public ProductFacetIndex(ProductRepository productRepository, ProductSearchIndex productSearchIndex) {
+        this.productRepository = productRepository;
+        this.productSearchIndex = productSearchIndex;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            try {
+                Map<Long, ProductDTO> fresh = new HashMap<>();
+                for (ProductDTO product : productRepository.findActiveDetails()) {
+                    fresh.put(product.getId(), product);
+                }
+
+                synchronized (this) {
+                    // The read may predate these changes; applying one twice is harmless
+                    pendingChanges.forEach(change -> change.accept(fresh));
+                    documents.clear();
+                    documents.putAll(fresh);
+                    columns = Columns.build(documents.values());
+                    stale = false;
+                }
+                logger.info("Product facet index built with {} products", fresh.size());
+            } finally {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        ProductDTO product = event.getProduct();
+        apply(indexed -> {
+            if (Boolean.TRUE.equals(product.getActive())) {
+                indexed.put(product.getId(), product);
+            } else {
+                indexed.remove(product.getId());
+            }
+        });
+        stale = true;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        // The in-stock facet moves when a product sells out or comes back
+        apply(indexed -> {
+            for (ProductDTO product : event.getProducts()) {
+                indexed.computeIfPresent(product.getId(), (id, previous) -> product);
+            }
+        });
+        if (!stale) {
+            columns = columns.withStock(event.getProducts());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onCategoryChanged(CategoryChangedEvent event) {
+        CategoryDTO category = event.getCategory();
+        apply(indexed -> indexed.replaceAll((id, product) -> {
+            if (!category.getId().equals(product.getCategoryId())) {
+                return product;
+            }
+            ProductDTO renamed = new ProductDTO();
+            BeanUtils.copyProperties(product, renamed);
+            renamed.setCategoryName(category.getName());
+            return renamed;
+        }));
+        stale = true;
+    }
+
+    public FacetedSearchResultDTO search(ProductFacetQuery query) {
+        Columns snapshot = columns();
+        int size = query.getSize() > 0 ? Math.min(query.getSize(), MAX_PAGE_SIZE) : 24;
+        int page = Math.max(query.getPage(), 0);
+
+        // Free-text narrows the candidate set but is not itself a facet
+        BitSet candidates = snapshot.all;
+        float[] scores = null;
+        String term = query.getQ() == null ? "" : query.getQ().trim();
+        if (!term.isEmpty()) {
+            candidates = new BitSet(snapshot.size);
+            scores = new float[snapshot.size];
+            for (SearchHit hit : productSearchIndex.search(term)) {
+                Integer position = snapshot.positions.get(hit.getProductId());
+                if (position != null) {
+                    candidates.set(position);
+                    scores[position] = hit.getScore();
+                }
+            }
+        }
+
+        boolean[] selectedCategories = null;
+        if (query.getCategory() != null && !query.getCategory().isEmpty()) {
+            selectedCategories = new boolean[snapshot.categoryIds.length];
+            for (Long categoryId : query.getCategory()) {
+                Integer ordinal = snapshot.categoryOrdinals.get(categoryId);
+                if (ordinal != null) {
+                    selectedCategories[ordinal] = true;
+                }
+            }
+        }
+        boolean[] selectedPrices = null;
+        if (query.getPrice() != null && !query.getPrice().isEmpty()) {
+            boolean[] selected = new boolean[PriceRange.values().length];
+            query.getPrice().forEach(key -> PriceRange.fromKey(key).ifPresent(range -> selected[range.ordinal()] = true));
+            selectedPrices = selected;
+        }
+        Boolean inStockFilter = query.getInStock();
+        Boolean featuredFilter = query.getFeatured();
+
+        long[] categoryCounts = new long[snapshot.categoryIds.length];
+        long[] priceCounts = new long[PriceRange.values().length];
+        long[] inStockCounts = new long[2];
+        long[] featuredCounts = new long[2];
+        List<Integer> matches = new ArrayList<>();
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            int category = snapshot.categories[i];
+            int price = snapshot.priceRanges[i];
+            boolean inStock = snapshot.inStock.get(i);
+            boolean featured = snapshot.featured.get(i);
+
+            boolean categoryOk = selectedCategories == null || (category >= 0 && selectedCategories[category]);
+            boolean priceOk = selectedPrices == null || selectedPrices[price];
+            boolean inStockOk = inStockFilter == null || inStockFilter == inStock;
+            boolean featuredOk = featuredFilter == null || featuredFilter == featured;
+
+            int failed = (categoryOk ? 0 : 1) + (priceOk ? 0 : 1) + (inStockOk ? 0 : 1) + (featuredOk ? 0 : 1);
+            if (failed > 1) {
+                continue;
+            }
+            if (failed == 0) {
+                matches.add(i);
+            }
+            // A product failing one filter only counts toward that facet
+            if (priceOk && inStockOk && featuredOk && category >= 0) {
+                categoryCounts[category]++;
+            }
+            if (categoryOk && inStockOk && featuredOk) {
+                priceCounts[price]++;
+            }
+            if (categoryOk && priceOk && featuredOk) {
+                inStockCounts[inStock ? 1 : 0]++;
+            }
+            if (categoryOk && priceOk && inStockOk) {
+                featuredCounts[featured ? 1 : 0]++;
+            }
+        }
+
+        if (scores != null) {
+            float[] ranking = scores;
+            matches.sort(Comparator.<Integer>comparingDouble(position -> -ranking[position])
+                .thenComparingLong(position -> snapshot.products[position].getId()));
+        }
+
+        List<ProductDTO> items = new ArrayList<>();
+        long from = (long) page * size;
+        for (long i = from; i < matches.size() && i < from + size; i++) {
+            items.add(snapshot.products[matches.get((int) i)]);
+        }
+
+        Map<String, List<FacetCountDTO>> facets = new LinkedHashMap<>();
+        List<FacetCountDTO> categoryFacet = new ArrayList<>();
+        for (int ordinal = 0; ordinal < snapshot.categoryIds.length; ordinal++) {
+            categoryFacet.add(new FacetCountDTO(String.valueOf(snapshot.categoryIds[ordinal]), snapshot.categoryNames[ordinal],
+                categoryCounts[ordinal], selectedCategories != null && selectedCategories[ordinal]));
+        }
+        facets.put(CATEGORY_FACET, categoryFacet);
+
+        List<FacetCountDTO> priceFacet = new ArrayList<>();
+        for (PriceRange range : PriceRange.values()) {
+            priceFacet.add(new FacetCountDTO(range.getKey(), range.getLabel(), priceCounts[range.ordinal()],
+                selectedPrices != null && selectedPrices[range.ordinal()]));
+        }
+        facets.put(PRICE_FACET, priceFacet);
+
+        facets.put(IN_STOCK_FACET, booleanFacet(inStockCounts, inStockFilter, "Em estoque", "Esgotado"));
+        facets.put(FEATURED_FACET, booleanFacet(featuredCounts, featuredFilter, "Em destaque", "Sem destaque"));
+
+        return new FacetedSearchResultDTO(items, matches.size(), page, size, facets);
+    }
+
+    private Columns columns() {
+        if (!stale) {
+            return columns;
+        }
+        synchronized (this) {
+            if (stale) {
+                columns = Columns.build(documents.values());
+                stale = false;
+            }
+            return columns;
+        }
+    }
+
+    // Callers hold the lock on this
+    private void apply(Consumer<Map<Long, ProductDTO>> change) {
+        change.accept(documents);
+        if (pendingChanges != null) {
+            pendingChanges.add(change);
+        }
+    }
+
+    private static List<FacetCountDTO> booleanFacet(long[] counts, Boolean filter, String trueLabel, String falseLabel) {
+        return List.of(
+            new FacetCountDTO("true", trueLabel, counts[1], Boolean.TRUE.equals(filter)),
+            new FacetCountDTO("false", falseLabel, counts[0], Boolean.FALSE.equals(filter)));
+    }
+
+    /**
+     * Immutable column arrays, one slot per active product in name order.
+     */
+    private static final class Columns {
+        private final int size;
+        private final ProductDTO[] products;
+        private final Map<Long, Integer> positions;
+        private final int[] categories;
+        private final byte[] priceRanges;
+        private final BitSet inStock;
+        private final BitSet featured;
+        private final BitSet all;
+
+        private final Long[] categoryIds;
+        private final String[] categoryNames;
+        private final Map<Long, Integer> categoryOrdinals;
+
+        private Columns(List<ProductDTO> sorted) {
+            size = sorted.size();
+            products = sorted.toArray(new ProductDTO[0]);
+            positions = new HashMap<>(size * 2);
+            categories = new int[size];
+            priceRanges = new byte[size];
+            inStock = new BitSet(size);
+            featured = new BitSet(size);
+            all = new BitSet(size);
+            all.set(0, size);
+
+            Map<Long, String> names = new LinkedHashMap<>();
+            sorted.stream()
+                .filter(product -> product.getCategoryId() != null)
+                .sorted(Comparator.comparing(product -> SearchTextNormalizer.fold(product.getCategoryName())))
+                .forEach(product -> names.putIfAbsent(product.getCategoryId(), product.getCategoryName()));
+            categoryIds = names.keySet().toArray(new Long[0]);
+            categoryNames = names.values().toArray(new String[0]);
+            categoryOrdinals = new HashMap<>();
+            for (int ordinal = 0; ordinal < categoryIds.length; ordinal++) {
+                categoryOrdinals.put(categoryIds[ordinal], ordinal);
+            }
+
+            for (int i = 0; i < size; i++) {
+                ProductDTO product = products[i];
+                positions.put(product.getId(), i);
+                categories[i] = categoryOrdinals.getOrDefault(product.getCategoryId(), -1);
+                priceRanges[i] = (byte) PriceRange.of(product.getPrice()).ordinal();
+                if (product.getStock() != null && product.getStock() > 0) {
+                    inStock.set(i);
+                }
+                if (Boolean.TRUE.equals(product.getFeatured())) {
+                    featured.set(i);
+                }
+            }
+        }
+
+        /**
+         * Copy with new stock for the given products. Only the product slots
+         * and the in-stock bitset are copied; nothing is sorted again.
+         */
+        private Columns(Columns source, List<ProductDTO> changed) {
+            size = source.size;
+            products = source.products.clone();
+            positions = source.positions;
+            categories = source.categories;
+            priceRanges = source.priceRanges;
+            inStock = (BitSet) source.inStock.clone();
+            featured = source.featured;
+            all = source.all;
+            categoryIds = source.categoryIds;
+            categoryNames = source.categoryNames;
+            categoryOrdinals = source.categoryOrdinals;
+
+            for (ProductDTO product : changed) {
+                Integer position = positions.get(product.getId());
+                if (position != null) {
+                    products[position] = product;
+                    inStock.set(position, product.getStock() != null && product.getStock() > 0);
+                }
+            }
+        }
+
+        Columns withStock(List<ProductDTO> changed) {
+            return new Columns(this, changed);
+        }
+
+        static Columns build(Iterable<ProductDTO> documents) {
+            List<ProductDTO> sorted = new ArrayList<>();
+            documents.forEach(sorted::add);
+            sorted.sort(Comparator.comparing((ProductDTO product) -> SearchTextNormalizer.fold(product.getName()))
+                .thenComparing(ProductDTO::getId));
+            return new Columns(sorted);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package com.filadelfia.store.filadelfiastore.service.search;
+
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductsImportedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.util.SearchTextNormalizer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index over the active catalog.
+ *
+ * Name, category name and description are tokenized and accent-folded into
+ * weighted postings, so a search is a handful of map lookups instead of a
+ * LIKE scan over the products table. A query term with no exact or prefix
+ * match falls back to vocabulary terms within a small edit distance, found
+ * through a trigram index, so "bilbia" still finds "Bíblia". The index is
+ * built once at startup and kept current from {@link ProductChangedEvent}s
+ * published by the product write paths after their transaction commits.
+ * Changes that arrive while a rebuild reads the catalog are applied to the
+ * live index and also replayed onto the new one before it is swapped in.
+ */
+@Component
+public class ProductSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    // Terms that only share a prefix with the query score lower than exact hits
+    private static final float PREFIX_MATCH_FACTOR = 0.5f;
+    private static final int MIN_PREFIX_LENGTH = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 50;
+
+    // Misspelled terms score lower still, and only long terms may have two typos
+    private static final float FUZZY_MATCH_FACTOR = 0.3f;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int TWO_EDITS_MIN_LENGTH = 8;
+    private static final int MAX_FUZZY_EXPANSIONS = 20;
+
+    private final ProductRepository productRepository;
+
+    private volatile IndexData data = new IndexData();
+    private volatile boolean ready = false;
+
+    private final Object rebuildLock = new Object();
+    // Non-null while a rebuild runs; guarded by this
+    private List<ProductDTO> pendingChanges;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            long start = System.currentTimeMillis();
+            synchronized (this) {
+                pendingChanges = new ArrayList<>();
+            }
+            try {
+                IndexData fresh = new IndexData();
+                for (ProductDTO product : productRepository.findActiveDetails()) {
+                    fresh.add(product);
+                }
+
+                synchronized (this) {
+                    // The read may predate these changes; applying one twice is harmless
+                    pendingChanges.forEach(product -> apply(fresh, product));
+                    data = fresh;
+                    ready = true;
+                }
+                logger.info("Product search index built with {} products and {} terms in {} ms",
+                        fresh.documentTerms.size(), fresh.postings.size(), System.currentTimeMillis() - start);
+            } finally {
+                synchronized (this) {
+                    pendingChanges = null;
+                }
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        ProductDTO product = event.getProduct();
+        apply(data, product);
+        if (pendingChanges != null) {
+            pendingChanges.add(product);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return data.documentTerms.size();
+    }
+
+    /**
+     * Returns the active products matching every term of the query, best
+     * match first. Ties are broken by id so the order is stable and can be
+     * used as a (score, id) seek key.
+     */
+    public List<SearchHit> search(String query) {
+        List<String> terms = SearchTextNormalizer.tokenize(query);
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+
+        IndexData snapshot = data;
+        Map<Long, Float> scores = null;
+        for (String term : terms) {
+            Map<Long, Float> exactScores = snapshot.match(term);
+            Map<Long, Float> termScores = exactScores.isEmpty() ? snapshot.fuzzyMatch(term) : exactScores;
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((id, score) -> score + termScores.get(id));
+            }
+            if (scores.isEmpty()) {
+                return List.of();
+            }
+        }
+
+        return scores.entrySet().stream()
+            .map(entry -> new SearchHit(entry.getKey(), entry.getValue()))
+            .sorted(SearchHit.RANKING)
+            .toList();
+    }
+
+    private static void apply(IndexData index, ProductDTO product) {
+        index.remove(product.getId());
+        if (Boolean.TRUE.equals(product.getActive())) {
+            index.add(product);
+        }
+    }
+
+    /**
+     * Optimal string alignment distance (Levenshtein plus adjacent
+     * transpositions), giving up with maxEdits + 1 as soon as every cell
+     * of a row exceeds the bound.
+     */
+    static int boundedEditDistance(String a, String b, int maxEdits) {
+        int[] beforePrevious = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    current[j] = Math.min(current[j], beforePrevious[j - 2] + 1);
+                }
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) {
+                return maxEdits + 1;
+            }
+            int[] recycled = beforePrevious;
+            beforePrevious = previous;
+            previous = current;
+            current = recycled;
+        }
+        return previous[b.length()];
+    }
+
+    private static final class IndexData {
+        private final ConcurrentSkipListMap<String, Map<Long, Float>> postings = new ConcurrentSkipListMap<>();
+        private final Map<Long, Set<String>> documentTerms = new ConcurrentHashMap<>();
+        // Trigram of a vocabulary term to the terms containing it
+        private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+
+        void add(ProductDTO product) {
+            Map<String, Float> weights = new HashMap<>();
+            addField(weights, product.getName(), NAME_WEIGHT);
+            addField(weights, product.getCategoryName(), CATEGORY_WEIGHT);
+            addField(weights, product.getDescription(), DESCRIPTION_WEIGHT);
+
+            weights.forEach((term, weight) -> {
+                if (!postings.containsKey(term)) {
+                    for (String gram : trigramsOf(term)) {
+                        trigrams.computeIfAbsent(gram, key -> ConcurrentHashMap.newKeySet()).add(term);
+                    }
+                }
+                postings.computeIfAbsent(term, key -> new ConcurrentHashMap<>()).put(product.getId(), weight);
+            });
+            documentTerms.put(product.getId(), Set.copyOf(weights.keySet()));
+        }
+
+        void remove(Long productId) {
+            Set<String> terms = documentTerms.remove(productId);
+            if (terms == null) {
+                return;
+            }
+            for (String term : terms) {
+                postings.computeIfPresent(term, (key, documents) -> {
+                    documents.remove(productId);
+                    return documents.isEmpty() ? null : documents;
+                });
+                if (!postings.containsKey(term)) {
+                    for (String gram : trigramsOf(term)) {
+                        trigrams.computeIfPresent(gram, (key, vocabulary) -> {
+                            vocabulary.remove(term);
+                            return vocabulary.isEmpty() ? null : vocabulary;
+                        });
+                    }
+                }
+            }
+        }
+
+        Map<Long, Float> match(String term) {
+            Map<Long, Float> result = new HashMap<>();
+            int documentCount = Math.max(documentTerms.size(), 1);
+
+            Map<String, Map<Long, Float>> candidates = term.length() < MIN_PREFIX_LENGTH
+                ? postings.subMap(term, true, term, true)
+                : postings.subMap(term, true, term + Character.MAX_VALUE, false);
+
+            int expansions = 0;
+            for (Map.Entry<String, Map<Long, Float>> entry : candidates.entrySet()) {
+                if (expansions++ >= MAX_PREFIX_EXPANSIONS) {
+                    break;
+                }
+                Map<Long, Float> documents = entry.getValue();
+                float factor = entry.getKey().equals(term) ? 1.0f : PREFIX_MATCH_FACTOR;
+                float idf = (float) Math.log(1.0 + (double) documentCount / documents.size());
+                documents.forEach((id, weight) -> result.merge(id, weight * idf * factor, Float::max));
+            }
+            return result;
+        }
+
+        /**
+         * Scores documents holding terms within one edit of the query term
+         * (two for long terms), counting a swap of adjacent letters as one
+         * edit. Candidates come from shared trigrams: an edit touches at most
+         * four of a term's n padded trigrams, so a term within k edits shares
+         * at least n - 4k of them and most of the vocabulary is never compared.
+         */
+        Map<Long, Float> fuzzyMatch(String term) {
+            Map<Long, Float> result = new HashMap<>();
+            if (term.length() < MIN_FUZZY_LENGTH) {
+                return result;
+            }
+            int maxEdits = term.length() >= TWO_EDITS_MIN_LENGTH ? 2 : 1;
+
+            List<String> grams = trigramsOf(term);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                for (String candidate : trigrams.getOrDefault(gram, Set.of())) {
+                    shared.merge(candidate, 1, Integer::sum);
+                }
+            }
+
+            int minShared = Math.max(1, grams.size() - 4 * maxEdits);
+            Map<String, Integer> distances = new HashMap<>();
+            Map<String, Map<Long, Float>> matches = new HashMap<>();
+            for (Map.Entry<String, Integer> entry : shared.entrySet()) {
+                String candidate = entry.getKey();
+                if (entry.getValue() < minShared || Math.abs(candidate.length() - term.length()) > maxEdits) {
+                    continue;
+                }
+                int distance = boundedEditDistance(term, candidate, maxEdits);
+                Map<Long, Float> documents = postings.get(candidate);
+                if (distance > maxEdits || documents == null) {
+                    continue;
+                }
+                distances.put(candidate, distance);
+                matches.put(candidate, documents);
+            }
+
+            // Keep the closest and most common spellings when there are too many
+            List<String> expansions = new ArrayList<>(matches.keySet());
+            expansions.sort(Comparator.<String>comparingInt(distances::get)
+                .thenComparing(candidate -> matches.get(candidate).size(), Comparator.reverseOrder())
+                .thenComparing(Comparator.naturalOrder()));
+
+            int documentCount = Math.max(documentTerms.size(), 1);
+            for (String candidate : expansions.subList(0, Math.min(expansions.size(), MAX_FUZZY_EXPANSIONS))) {
+                Map<Long, Float> documents = matches.get(candidate);
+                float factor = FUZZY_MATCH_FACTOR / distances.get(candidate);
+                float idf = (float) Math.log(1.0 + (double) documentCount / documents.size());
+                documents.forEach((id, weight) -> result.merge(id, weight * idf * factor, Float::max));
+            }
+            return result;
+        }
+
+        private static List<String> trigramsOf(String term) {
+            String padded = "$" + term + "$";
+            List<String> grams = new ArrayList<>(padded.length());
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+            return grams;
+        }
+
+        private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+            for (String token : SearchTextNormalizer.tokenize(text)) {
+                weights.merge(token, fieldWeight, Float::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.filadelfia.store.filadelfiastore.service.search;
+
+import java.util.Comparator;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A ranked search result. Hits are ordered by score descending, then by
+ * product id, which makes (score, id) a stable seek key for paging.
+ */
+@Getter
+@AllArgsConstructor
+public class SearchHit {
+
+    public static final Comparator<SearchHit> RANKING = Comparator
+        .comparing(SearchHit::getScore, Comparator.reverseOrder())
+        .thenComparing(SearchHit::getProductId);
+
+    private final Long productId;
+    private final float score;
+
+    /**
+     * True when this hit ranks strictly after the given seek position.
+     */
+    public boolean isAfter(float seekScore, Long seekId) {
+        int byScore = Float.compare(score, seekScore);
+        if (byScore != 0) {
+            return byScore < 0; // lower scores rank later
+        }
+        return productId > seekId;
+    }
+}
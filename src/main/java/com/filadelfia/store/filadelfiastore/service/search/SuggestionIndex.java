@@ -0,0 +1,271 @@
+package com.filadelfia.store.filadelfiastore.service.search;
+
+import com.filadelfia.store.filadelfiastore.event.CategoryChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.ProductsImportedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.SuggestionDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.Category;
+import com.filadelfia.store.filadelfiastore.model.enums.OrderStatus;
+import com.filadelfia.store.filadelfiastore.repository.CategoryRepository;
+import com.filadelfia.store.filadelfiastore.repository.OrderItemRepository;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.util.SearchTextNormalizer;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Pattern;
+
+/**
+ * Prefix trie over product and category names for the shop typeahead.
+ *
+ * Every word start of a name is inserted, so "caf" finds "Bíblia Café".
+ * Each node keeps its best suggestions pre-ranked by units sold, which makes
+ * a lookup a walk of at most {@link #MAX_DEPTH} nodes with no sorting. The
+ * trie is immutable once built; writes trigger a background rebuild that is
+ * swapped in through a volatile reference.
+ */
+@Component
+public class SuggestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SuggestionIndex.class);
+
+    public static final int MAX_SUGGESTIONS = 8;
+    // Longer prefixes share the deepest node's suggestions
+    private static final int MAX_DEPTH = 24;
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "suggestion-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+
+    private volatile Node root = new Node();
+
+    public SuggestionIndex(ProductRepository productRepository, CategoryRepository categoryRepository,
+                           OrderItemRepository orderItemRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+
+        Node node = root;
+        for (int i = 0; i < prefix.length() && i < MAX_DEPTH && node != null; i++) {
+            node = node.children.get(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+
+        List<SuggestionDTO> result = new ArrayList<>();
+        for (Suggestion suggestion : node.top) {
+            if (result.size() >= limit) {
+                break;
+            }
+            // Past the trie depth the node only guarantees the first MAX_DEPTH characters
+            if (prefix.length() <= MAX_DEPTH || suggestion.matches(prefix)) {
+                result.add(suggestion.dto);
+            }
+        }
+        return result;
+    }
+
+    @EventListener({ApplicationReadyEvent.class, ProductsImportedEvent.class})
+    public void onCatalogReloaded() {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCategoryChanged(CategoryChangedEvent event) {
+        scheduleRebuild();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+
+    /**
+     * Coalesces bursts of changes (bulk edits, imports) into a single rebuild.
+     */
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildPending.set(false);
+                try {
+                    rebuild();
+                } catch (RuntimeException e) {
+                    logger.error("Failed to rebuild suggestion index", e);
+                }
+            });
+        }
+    }
+
+    private void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Suggestion> suggestions = readOnlyTransaction.execute(status -> loadSuggestions());
+
+        Node fresh = new Node();
+        for (Suggestion suggestion : suggestions) {
+            fresh.insert(suggestion);
+        }
+        fresh.freeze();
+        root = fresh;
+        logger.debug("Suggestion index built with {} entries in {} ms",
+                suggestions.size(), System.currentTimeMillis() - start);
+    }
+
+    private List<Suggestion> loadSuggestions() {
+        Map<Long, Long> unitsSold = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumQuantityByProduct(OrderStatus.CANCELLED)) {
+            unitsSold.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+
+        List<Suggestion> suggestions = new ArrayList<>();
+        Map<Long, Long> categoryWeights = new HashMap<>();
+        for (ProductDTO product : productRepository.findActiveSummaries()) {
+            // Unsold products still rank, just below anything that has sold
+            long weight = 1 + unitsSold.getOrDefault(product.getId(), 0L);
+            suggestions.add(new Suggestion(normalize(product.getName()), weight,
+                new SuggestionDTO(product.getName(), "product", product.getId(), "/shop/product/" + product.getId())));
+            if (product.getCategoryId() != null) {
+                categoryWeights.merge(product.getCategoryId(), weight, Long::sum);
+            }
+        }
+
+        for (Category category : categoryRepository.findByActiveTrue()) {
+            Long weight = categoryWeights.get(category.getId());
+            if (weight == null) {
+                continue; // nothing to show in an empty category
+            }
+            String url = "/shop/category/" + UriUtils.encodePathSegment(category.getName(), StandardCharsets.UTF_8);
+            suggestions.add(new Suggestion(normalize(category.getName()), weight,
+                new SuggestionDTO(category.getName(), "category", category.getId(), url)));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Accent-folded, lower-case text with runs of punctuation and spaces
+     * collapsed to one space, so queries and names compare the same way.
+     */
+    private static String normalize(String text) {
+        return SEPARATORS.matcher(SearchTextNormalizer.fold(text)).replaceAll(" ").trim();
+    }
+
+    private static final class Suggestion {
+        private final String key;
+        private final long weight;
+        private final SuggestionDTO dto;
+
+        private Suggestion(String key, long weight, SuggestionDTO dto) {
+            this.key = key;
+            this.weight = weight;
+            this.dto = dto;
+        }
+
+        boolean matches(String prefix) {
+            return key.startsWith(prefix) || key.contains(" " + prefix);
+        }
+
+        boolean ranksAbove(Suggestion other) {
+            if (weight != other.weight) {
+                return weight > other.weight;
+            }
+            return key.compareTo(other.key) < 0;
+        }
+    }
+
+    private static final class Node {
+        private static final Suggestion[] EMPTY = new Suggestion[0];
+
+        private Map<Character, Node> children = new HashMap<>();
+        private Suggestion[] top = EMPTY;
+
+        void insert(Suggestion suggestion) {
+            String key = suggestion.key;
+            int wordStart = 0;
+            while (wordStart >= 0 && wordStart < key.length()) {
+                Node node = this;
+                for (int i = wordStart; i < key.length() && i - wordStart < MAX_DEPTH; i++) {
+                    node = node.children.computeIfAbsent(key.charAt(i), c -> new Node());
+                    node.offer(suggestion);
+                }
+                int space = key.indexOf(' ', wordStart);
+                wordStart = space < 0 ? -1 : space + 1;
+            }
+        }
+
+        /**
+         * Keeps the node's top list sorted and capped at MAX_SUGGESTIONS.
+         */
+        private void offer(Suggestion suggestion) {
+            for (Suggestion existing : top) {
+                if (existing == suggestion) {
+                    return; // same name reached through two of its words
+                }
+            }
+            int position = top.length;
+            while (position > 0 && suggestion.ranksAbove(top[position - 1])) {
+                position--;
+            }
+            if (position >= MAX_SUGGESTIONS) {
+                return;
+            }
+            int length = Math.min(top.length + 1, MAX_SUGGESTIONS);
+            Suggestion[] next = new Suggestion[length];
+            System.arraycopy(top, 0, next, 0, position);
+            next[position] = suggestion;
+            System.arraycopy(top, position, next, position + 1, length - position - 1);
+            top = next;
+        }
+
+        /**
+         * Swaps child maps for compact immutable copies once building is done.
+         */
+        void freeze() {
+            for (Node child : children.values()) {
+                child.freeze();
+            }
+            children = children.isEmpty() ? Map.of() : Map.copyOf(children);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Small LRU cache bounded by entry count and time-to-live.
+ *
+ * Loads run outside the lock, so a slow database read never blocks other
+ * readers; two concurrent misses on the same key may both load, which is
+ * harmless for read-through catalog data. Every invalidation bumps a
+ * generation, and a load that overlapped one is returned but not stored:
+ * it may have read the data from before the write.
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    // Guarded by entries
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public BoundedTtlCache(String name, int maxSize, long ttlMillis) {
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    public V get(K key, Function<K, V> loader) {
+        long now = System.currentTimeMillis();
+        long loadGeneration;
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null) {
+                if (entry.expiresAt > now) {
+                    hits.increment();
+                    return entry.value;
+                }
+                entries.remove(key);
+                expirations.increment();
+            }
+            loadGeneration = generation;
+        }
+
+        misses.increment();
+        V value = loader.apply(key);
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                store(key, value);
+            }
+        }
+        return value;
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            store(key, value);
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            generation++;
+            if (entries.remove(key) != null) {
+                invalidations.increment();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            generation++;
+            invalidations.add(entries.size());
+            entries.clear();
+        }
+    }
+
+    public Map<String, Object> stats() {
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("size", size);
+        stats.put("maxSize", maxSize);
+        stats.put("ttlSeconds", ttlMillis / 1000);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("expirations", expirations.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    // Callers hold the lock on entries
+    private void store(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        Iterator<Map.Entry<K, Entry<V>>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
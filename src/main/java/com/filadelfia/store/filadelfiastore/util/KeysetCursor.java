@@ -0,0 +1,47 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Opaque cursor for keyset (seek) pagination over a (sortKey, id) ordering.
+ * The encoded form is URL-safe so it can travel as a plain query parameter.
+ */
+@Getter
+@AllArgsConstructor
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '\n';
+
+    private final String sortKey;
+    private final Long id;
+
+    public static String encode(String sortKey, Long id) {
+        String raw = (sortKey != null ? sortKey : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor, returning empty for a missing or tampered value so
+     * callers simply start from the first page.
+     */
+    public static Optional<KeysetCursor> decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return Optional.empty();
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new KeysetCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1))));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
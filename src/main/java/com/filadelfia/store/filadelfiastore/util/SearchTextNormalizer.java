@@ -0,0 +1,75 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns free text into search terms: accent folding, lower casing,
+ * splitting on anything that is not a letter or digit and light Portuguese
+ * plural stemming.
+ */
+public final class SearchTextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^a-z0-9]+");
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos",
+        "em", "na", "no", "nas", "nos", "um", "uma", "para", "com", "por"
+    );
+
+    private SearchTextNormalizer() {
+    }
+
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty() && !STOP_WORDS.contains(token)) {
+                tokens.add(stem(token));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Reduces a folded Portuguese word to its singular form ("canções" and
+     * "canção" both become "cancao"), following the plural step of the RSLP
+     * stemmer. Deliberately light: gender and verb endings are kept so
+     * prefix matching on partial words keeps working.
+     */
+    public static String stem(String token) {
+        if (token.length() <= 3 || !token.endsWith("s")) {
+            return token;
+        }
+        if (token.endsWith("oes") || token.endsWith("aes")) {
+            return token.substring(0, token.length() - 3) + "ao";
+        }
+        if (token.endsWith("ais") && token.length() > 4) {
+            return token.substring(0, token.length() - 2) + "l";
+        }
+        if (token.endsWith("eis") || token.endsWith("ois")) {
+            return token.substring(0, token.length() - 2) + "l";
+        }
+        if (token.endsWith("ns")) {
+            return token.substring(0, token.length() - 2) + "m";
+        }
+        if (token.endsWith("res") || token.endsWith("zes")) {
+            return token.substring(0, token.length() - 2);
+        }
+        if (token.endsWith("ss") || token.endsWith("us") || token.endsWith("is")) {
+            return token;
+        }
+        return token.substring(0, token.length() - 1);
+    }
+}
@@ -0,0 +1,109 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Time-ordered, collision-free ids for order numbers and payment
+ * transaction ids.
+ *
+ * An id packs 41 bits of milliseconds since 2024-01-01, a 10-bit node id and
+ * a 12-bit sequence within the millisecond, so every node hands out up to
+ * 4096 ids per millisecond and ids from different nodes never meet. The
+ * last millisecond and sequence live in one AtomicLong advanced by
+ * compare-and-set: no lock is taken. When the sequence runs out, or the
+ * clock steps back, the generator keeps counting on the last millisecond it
+ * used instead of waiting, so ids stay increasing and only run slightly
+ * ahead of the clock until it catches up.
+ *
+ * Codes are the id in Crockford base32, always 13 characters: they sort in
+ * id order and leave out letters that read like digits (I, L, O, U).
+ */
+@Component
+public class SnowflakeIdGenerator {
+
+    static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CODE_LENGTH = 13;
+
+    private final long nodeId;
+    private final LongSupplier clock;
+
+    // Milliseconds since the epoch, shifted left, plus the sequence
+    private final AtomicLong lastTick = new AtomicLong();
+
+    @Autowired
+    public SnowflakeIdGenerator(@Value("${app.ids.node-id:-1}") long nodeId) {
+        this(nodeId < 0 ? nodeIdFromHostName() : nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        long now = clock.getAsLong() - EPOCH_MILLIS;
+        while (true) {
+            long last = lastTick.get();
+            // A full sequence carries into the next millisecond on its own
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (lastTick.compareAndSet(last, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * A new id as a code, e.g. "ORD-" + nextCode().
+     */
+    public String nextCode() {
+        return encode(nextId());
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+
+    public static String encode(long id) {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(code);
+    }
+
+    /**
+     * Milliseconds since 1970 at which the id was generated.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    // Set app.ids.node-id on every instance when running more than one
+    private static long nodeIdFromHostName() {
+        try {
+            return (InetAddress.getLocalHost().getHostName().hashCode() & Integer.MAX_VALUE) % (MAX_NODE_ID + 1);
+        } catch (UnknownHostException e) {
+            return 0;
+        }
+    }
+}
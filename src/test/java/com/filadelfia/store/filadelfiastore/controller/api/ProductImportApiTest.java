@@ -0,0 +1,128 @@
+package com.filadelfia.store.filadelfiastore.controller.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductImportJobDTO;
+import com.filadelfia.store.filadelfiastore.model.enums.ImportJobStatus;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * The import file is the raw request body: its format comes from the
+ * parameter, the Content-Type or the file name, and a body past the import
+ * limit is refused while it is being read.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:productimportapidb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "app.import.max-size=64KB"
+})
+class ProductImportApiTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    // Shared by all tests of the class
+    private static CategoryDTO category;
+
+    @BeforeEach
+    void setUp() {
+        if (category != null) {
+            return;
+        }
+        CategoryDTO created = new CategoryDTO();
+        created.setName("Import " + System.nanoTime());
+        created.setDescription("Product imports");
+        category = categoryService.createCategory(created);
+    }
+
+    @Test
+    void csvBodyIsImportedAndBadRowsReported() throws Exception {
+        String csv = "name;description;price;stock;category\n"
+            + "Hinário 1;\"Capa; dura\";12,50;3;" + category.getName() + "\n"
+            + "Hinário 2;Brochura;9,90;5;" + category.getName() + "\n"
+            + "Hinário 3;Sem preço;abc;1;" + category.getName() + "\n";
+
+        ProductImportJobDTO job = awaitFinished(start(csv, "text/csv", null));
+
+        assertEquals(ImportJobStatus.COMPLETED, job.getStatus());
+        assertEquals(2, job.getImportedRows());
+        assertEquals(1, job.getFailedRows());
+        String errors = mockMvc.perform(get("/api/v1/products/import/" + job.getJobId() + "/errors"))
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        assertEquals(2, errors.lines().count());
+    }
+
+    @Test
+    void fileNameGivesTheFormatOfAnOctetStream() throws Exception {
+        String jsonLines = "{\"name\":\"Vela\",\"description\":\"Vela de cera\",\"price\":3.5,\"categoryId\":" + category.getId() + "}\n"
+            + "{bad json\n";
+
+        ProductImportJobDTO job = awaitFinished(start(jsonLines, MediaType.APPLICATION_OCTET_STREAM_VALUE, "velas.jsonl"));
+
+        assertEquals("JSONL", job.getFormat());
+        assertEquals(1, job.getImportedRows());
+        assertEquals(1, job.getFailedRows());
+    }
+
+    @Test
+    void emptyOrOversizedBodiesAreRefused() throws Exception {
+        assertEquals(400, upload("", "text/csv", null).getResponse().getStatus());
+        assertEquals(400, upload("x".repeat(65 * 1024), "text/csv", null).getResponse().getStatus());
+    }
+
+    private MvcResult upload(String body, String contentType, String fileName) throws Exception {
+        MockHttpServletRequestBuilder request = post("/api/v1/products/import")
+            .contentType(contentType)
+            .content(body.getBytes(StandardCharsets.UTF_8));
+        if (fileName != null) {
+            request.param("fileName", fileName);
+        }
+        return mockMvc.perform(request).andReturn();
+    }
+
+    private ProductImportJobDTO start(String body, String contentType, String fileName) throws Exception {
+        MvcResult result = upload(body, contentType, fileName);
+        assertEquals(202, result.getResponse().getStatus(), result.getResponse().getContentAsString());
+        return objectMapper.readValue(result.getResponse().getContentAsString(), ProductImportJobDTO.class);
+    }
+
+    // Imports run on a background thread
+    private ProductImportJobDTO awaitFinished(ProductImportJobDTO job) throws Exception {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(30);
+        while (!job.getStatus().isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            String json = mockMvc.perform(get("/api/v1/products/import/" + job.getJobId()))
+                .andReturn().getResponse().getContentAsString();
+            job = objectMapper.readValue(json, ProductImportJobDTO.class);
+        }
+        return job;
+    }
+}
@@ -0,0 +1,88 @@
+package com.filadelfia.store.filadelfiastore.controller.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The API search returns whole products, descriptions included, while the
+ * shop's paged search keeps the short teaser its cards show.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:productsearchapidb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class ProductSearchApiTest {
+
+    private static final String DESCRIPTION = "Couro legítimo, letra grande, índice lateral. ".repeat(8);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Test
+    void searchReturnsTheWholeDescription() throws Exception {
+        newProduct("Bíblia Pergaminho");
+        awaitIndexed("pergaminho");
+
+        String json = mockMvc.perform(get("/api/v1/products/search").param("q", "pergaminho"))
+            .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JsonNode results = objectMapper.readTree(json);
+
+        assertEquals(1, results.size());
+        assertEquals(DESCRIPTION, results.get(0).get("description").asText());
+        assertEquals(160, productService.searchProducts("pergaminho", null, 10).getItems().get(0).getDescription().length());
+    }
+
+    // The search index picks new products up after their transaction commits
+    private void awaitIndexed(String term) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (productService.searchProducts(term).isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private void newProduct(String name) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Search " + System.nanoTime());
+        category.setDescription("Product search");
+        Long categoryId = categoryService.createCategory(category).getId();
+
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setDescription(DESCRIPTION);
+        product.setPrice(new BigDecimal("89.90"));
+        product.setStock(5);
+        product.setCategoryId(categoryId);
+        productService.createProduct(product);
+    }
+}
@@ -0,0 +1,188 @@
+package com.filadelfia.store.filadelfiastore.controller.web;
+
+import com.filadelfia.store.filadelfiastore.config.CartMergeAuthenticationSuccessHandler;
+import com.filadelfia.store.filadelfiastore.config.CustomUserDetailsService;
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.cart.GuestCart;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * A visitor's cart lives in the session: only products that exist get in,
+ * the cart page prices it, and logging in merges it into the user's cart.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:guestcartwebdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class GuestCartWebTest {
+
+    private static final Long UNKNOWN_PRODUCT_ID = 999_999L;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CartMergeAuthenticationSuccessHandler mergeHandler;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Shared by all tests of the class
+    private static Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        if (categoryId != null) {
+            return;
+        }
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Guest " + System.nanoTime());
+        category.setDescription("Guest carts");
+        categoryId = categoryService.createCategory(category).getId();
+    }
+
+    @Test
+    void addsAndUpdatesChangeTheSessionCart() throws Exception {
+        ProductDTO first = newProduct("5.50");
+        ProductDTO second = newProduct("2.00");
+        MockHttpSession session = new MockHttpSession();
+
+        add(session, first.getId(), 2);
+        add(session, second.getId(), 1);
+        mockMvc.perform(post("/cart/update").session(session)
+            .param("productId", second.getId().toString())
+            .param("quantity", "3"));
+        assertEquals(Map.of(first.getId(), 2, second.getId(), 3), quantitiesIn(session));
+
+        mockMvc.perform(post("/cart/update-all").session(session)
+            .param("items[0].productId", first.getId().toString())
+            .param("items[0].quantity", "4")
+            .param("items[1].productId", second.getId().toString())
+            .param("items[1].quantity", "0"));
+        assertEquals(Map.of(first.getId(), 4), quantitiesIn(session));
+
+        String page = mockMvc.perform(get("/cart").session(session)).andReturn().getResponse().getContentAsString();
+        assertTrue(page.contains(first.getName()), "cart page lists the product");
+        assertTrue(page.contains("22,00") || page.contains("22.00"), "cart page shows the total");
+    }
+
+    @Test
+    void unknownProductIsRefusedWithoutStartingACart() throws Exception {
+        MvcResult result = mockMvc.perform(post("/cart/add")
+                .param("productId", UNKNOWN_PRODUCT_ID.toString())
+                .param("quantity", "1"))
+            .andReturn();
+
+        // The flash message may open a session, but no cart is kept in it
+        assertNull(GuestCart.from(result.getRequest().getSession(false)));
+        assertNotNull(result.getFlashMap().get("errorMessage"));
+    }
+
+    @Test
+    void unknownProductLeavesAnExistingCartAlone() throws Exception {
+        ProductDTO product = newProduct("5.50");
+        MockHttpSession session = new MockHttpSession();
+        add(session, product.getId(), 1);
+
+        add(session, UNKNOWN_PRODUCT_ID, 1);
+
+        assertEquals(Map.of(product.getId(), 1), quantitiesIn(session));
+    }
+
+    @Test
+    void loginMergesTheGuestCartIntoTheUsersCart() throws Exception {
+        ProductDTO first = newProduct("5.50");
+        ProductDTO second = newProduct("2.00");
+        User user = newUser();
+        cartService.addItemToCart(user.getId(), first.getId(), 1);
+        MockHttpSession session = new MockHttpSession();
+        add(session, first.getId(), 2);
+        add(session, second.getId(), 3);
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setSession(session);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        mergeHandler.onAuthenticationSuccess(request, response, new UsernamePasswordAuthenticationToken(
+            new CustomUserDetailsService.CustomUserDetails(user), null, List.of()));
+
+        Map<Long, Integer> merged = cartService.getCartByUserId(user.getId()).getItems().stream()
+            .collect(Collectors.toMap(CartItemDTO::getProductId, CartItemDTO::getQuantity));
+        assertEquals(Map.of(first.getId(), 3, second.getId(), 3), merged);
+        assertNull(session.getAttribute(GuestCart.SESSION_ATTRIBUTE));
+        assertEquals("/", response.getRedirectedUrl());
+    }
+
+    private void add(MockHttpSession session, Long productId, int quantity) throws Exception {
+        mockMvc.perform(post("/cart/add").session(session)
+            .param("productId", productId.toString())
+            .param("quantity", Integer.toString(quantity)));
+    }
+
+    private static Map<Long, Integer> quantitiesIn(MockHttpSession session) {
+        return GuestCart.quantitiesOf(session);
+    }
+
+    private ProductDTO newProduct(String price) {
+        ProductDTO product = new ProductDTO();
+        product.setName("Guest product " + System.nanoTime());
+        product.setDescription("Guest carts");
+        product.setPrice(new BigDecimal(price));
+        product.setStock(10);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product);
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setName("Guest");
+        user.setEmail("guest" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user);
+    }
+}
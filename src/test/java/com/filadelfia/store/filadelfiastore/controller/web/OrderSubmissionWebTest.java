@@ -0,0 +1,157 @@
+package com.filadelfia.store.filadelfiastore.controller.web;
+
+import com.filadelfia.store.filadelfiastore.config.CustomUserDetailsService;
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.OrderRepository;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.idempotency.IdempotencyKeys;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * The order form sent several times at once, through the web layer with its
+ * request-wide persistence context: one order is placed and every
+ * submission is sent to its payment page.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc(addFilters = false)
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:ordersubmissionwebdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.jpa.show-sql=false"
+})
+class OrderSubmissionWebTest {
+
+    private static final int SUBMISSIONS = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private IdempotencyKeys idempotencyKeys;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void concurrentResubmitsPlaceOneOrder() throws Exception {
+        Long productId = newProduct();
+        User user = newUser();
+        cartService.addItemToCart(user.getId(), productId, 2);
+        String key = idempotencyKeys.issue();
+
+        ExecutorService pool = Executors.newFixedThreadPool(SUBMISSIONS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> submissions = new ArrayList<>();
+        for (int i = 0; i < SUBMISSIONS; i++) {
+            submissions.add(pool.submit(() -> {
+                start.await();
+                return submit(user, key);
+            }));
+        }
+        start.countDown();
+        Set<String> redirects = new HashSet<>();
+        for (Future<String> submission : submissions) {
+            redirects.add(submission.get(1, TimeUnit.MINUTES));
+        }
+        pool.shutdown();
+
+        assertEquals(1, redirects.size(), redirects.toString());
+        String redirect = redirects.iterator().next();
+        assertTrue(redirect.matches("/orders/\\d+/payment"), redirect);
+        assertEquals(1, orderRepository.findByUserIdOrderByCreatedAtDesc(user.getId()).size());
+        assertEquals(48, productRepository.findById(productId).orElseThrow().getStock());
+
+        // A resend after the first one finished gets the same order back
+        assertEquals(redirect, submit(user, key));
+    }
+
+    private String submit(User user, String key) throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+            new CustomUserDetailsService.CustomUserDetails(user), null, List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+        try {
+            return mockMvc.perform(post("/orders/create")
+                    .param("paymentMethod", "PIX")
+                    .param("shippingStreet", "Rua A")
+                    .param("shippingNumber", "1")
+                    .param("shippingNeighborhood", "Centro")
+                    .param("shippingCity", "São Paulo")
+                    .param("shippingState", "SP")
+                    .param("shippingZipCode", "12345-678")
+                    .param("idempotencyKey", key))
+                .andReturn().getResponse().getRedirectedUrl();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private Long newProduct() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Submission " + System.nanoTime());
+        category.setDescription("Order submissions");
+        Long categoryId = categoryService.createCategory(category).getId();
+
+        ProductDTO product = new ProductDTO();
+        product.setName("Submitted product " + System.nanoTime());
+        product.setDescription("Order submissions");
+        product.setPrice(new BigDecimal("3.00"));
+        product.setStock(50);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product).getId();
+    }
+
+    private User newUser() {
+        User user = new User();
+        user.setName("Submission");
+        user.setEmail("submission" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user);
+    }
+}
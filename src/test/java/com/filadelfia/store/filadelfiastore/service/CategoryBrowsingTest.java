@@ -0,0 +1,101 @@
+package com.filadelfia.store.filadelfiastore.service;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductSliceDTO;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Browsing a category walks its whole subtree in name order, one cursor
+ * page at a time, and every page reports the subtree's product count.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:categorybrowsingdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class CategoryBrowsingTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Test
+    void pagesWalkTheSubtreeInNameOrder() throws Exception {
+        CategoryDTO parent = newCategory(null);
+        CategoryDTO child = newCategory(parent.getId());
+        newProduct("Bíblia A", parent);
+        newProduct("Bíblia B", child);
+        newProduct("Bíblia C", parent);
+        newProduct("Bíblia D", child);
+        newProduct("Bíblia E", child);
+        awaitProductCount(parent, 5);
+
+        List<String> names = new ArrayList<>();
+        List<Long> totals = new ArrayList<>();
+        String cursor = null;
+        do {
+            ProductSliceDTO slice = productService.getProductsByCategory(parent.getName(), cursor, 2);
+            slice.getItems().forEach(product -> names.add(product.getName()));
+            totals.add(slice.getTotalElements());
+            cursor = slice.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("Bíblia A", "Bíblia B", "Bíblia C", "Bíblia D", "Bíblia E"), names);
+        assertEquals(List.of(5L, 5L, 5L), totals);
+        assertEquals(3, productService.getProductsByCategory(child.getName(), null, 10).getTotalElements());
+    }
+
+    @Test
+    void unknownCategoryIsAnEmptySlice() {
+        ProductSliceDTO slice = productService.getProductsByCategory("No such category " + System.nanoTime(), null, 10);
+
+        assertEquals(List.of(), slice.getItems());
+        assertNull(slice.getNextCursor());
+    }
+
+    // The category tree is rebuilt in the background after product writes
+    private void awaitProductCount(CategoryDTO category, long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (System.currentTimeMillis() < deadline
+                && categoryService.getCategoryNode(category.getName()).map(node -> node.getProductCount()).orElse(0L) != expected) {
+            Thread.sleep(20);
+        }
+    }
+
+    private CategoryDTO newCategory(Long parentId) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Browsing " + System.nanoTime());
+        category.setDescription("Category browsing");
+        category.setParentId(parentId);
+        return categoryService.createCategory(category);
+    }
+
+    private void newProduct(String name, CategoryDTO category) {
+        ProductDTO product = new ProductDTO();
+        product.setName(name);
+        product.setDescription("Category browsing");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(5);
+        product.setCategoryId(category.getId());
+        productService.createProduct(product);
+    }
+}
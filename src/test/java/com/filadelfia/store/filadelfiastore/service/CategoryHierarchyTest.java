@@ -0,0 +1,95 @@
+package com.filadelfia.store.filadelfiastore.service;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Moving categories: an update only moves a category when asked to, and
+ * never lets a moved subtree grow past the depth limit.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:categoryhierarchydb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class CategoryHierarchyTest {
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Test
+    void updateWithoutParentKeepsTheCategoryWhereItIs() {
+        CategoryDTO root = create(null);
+        CategoryDTO child = create(root.getId());
+        CategoryDTO grandchild = create(child.getId());
+
+        CategoryDTO request = renamed(child);
+        CategoryDTO updated = categoryService.updateCategory(child.getId(), request);
+
+        assertEquals(root.getId(), updated.getParentId());
+        assertEquals(child.getPath(), updated.getPath());
+        assertEquals(grandchild.getPath(), categoryService.getCategoryById(grandchild.getId()).orElseThrow().getPath());
+    }
+
+    @Test
+    void moveToRootMovesTheWholeSubtree() {
+        CategoryDTO root = create(null);
+        CategoryDTO child = create(root.getId());
+        CategoryDTO grandchild = create(child.getId());
+
+        CategoryDTO request = renamed(child);
+        request.setMoveToRoot(true);
+        CategoryDTO updated = categoryService.updateCategory(child.getId(), request);
+
+        assertNull(updated.getParentId());
+        assertEquals("/" + child.getId() + "/", updated.getPath());
+        assertEquals("/" + child.getId() + "/" + grandchild.getId() + "/",
+            categoryService.getCategoryById(grandchild.getId()).orElseThrow().getPath());
+    }
+
+    @Test
+    void movingADeepSubtreeUnderADeepParentIsRefused() {
+        // Five levels: the deepest category is at the limit
+        CategoryDTO parent = create(null);
+        for (int level = 2; level <= 4; level++) {
+            parent = create(parent.getId());
+        }
+        create(parent.getId());
+
+        // A two-level subtree fits under level 3 but not under level 4
+        CategoryDTO subtree = create(null);
+        create(subtree.getId());
+        CategoryDTO request = renamed(subtree);
+        request.setParentId(parent.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> categoryService.updateCategory(subtree.getId(), request));
+        request.setParentId(parent.getParentId());
+        assertEquals(parent.getParentId(), categoryService.updateCategory(subtree.getId(), request).getParentId());
+    }
+
+    private CategoryDTO create(Long parentId) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Category " + System.nanoTime());
+        category.setDescription("Hierarchy");
+        category.setParentId(parentId);
+        return categoryService.createCategory(category);
+    }
+
+    private static CategoryDTO renamed(CategoryDTO category) {
+        CategoryDTO request = new CategoryDTO();
+        request.setName(category.getName() + " (renamed)");
+        request.setDescription(category.getDescription());
+        return request;
+    }
+}
@@ -0,0 +1,112 @@
+package com.filadelfia.store.filadelfiastore.service;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.exception.custom.CheckoutChangedException;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CheckoutLineChangeDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.OrderDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.CheckoutIssue;
+import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An order is only placed from a cart priced and stocked as the catalog is
+ * now; anything that changed since the items were added is reported first.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:checkoutvalidationdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class CheckoutValidationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void changedPricesAndShortStockAreReportedBeforeTheOrder() {
+        Long categoryId = newCategory();
+        ProductDTO repriced = newProduct(categoryId, "5.50", 10);
+        ProductDTO scarce = newProduct(categoryId, "2.00", 10);
+        Long userId = newUser();
+        cartService.addItemToCart(userId, repriced.getId(), 2);
+        cartService.addItemToCart(userId, scarce.getId(), 3);
+
+        repriced.setPrice(new BigDecimal("6.00"));
+        productService.updateProduct(repriced.getId(), repriced);
+        scarce.setStock(1);
+        productService.updateProduct(scarce.getId(), scarce);
+
+        CheckoutChangedException refused = assertThrows(CheckoutChangedException.class,
+            () -> orderService.createOrderFromCart(userId, PaymentMethod.PIX, "Rua A, 1"));
+        Map<Long, CheckoutIssue> issues = refused.getValidation().getChanges().stream()
+            .collect(Collectors.toMap(CheckoutLineChangeDTO::getProductId, CheckoutLineChangeDTO::getIssue));
+        assertEquals(Map.of(repriced.getId(), CheckoutIssue.PRICE_CHANGED,
+                            scarce.getId(), CheckoutIssue.INSUFFICIENT_STOCK), issues);
+
+        cartService.updateCartItemQuantity(userId, scarce.getId(), 1);
+        OrderDTO order = orderService.createOrderFromCart(userId, PaymentMethod.PIX, "Rua A, 1");
+
+        assertEquals(0, new BigDecimal("14.00").compareTo(order.getSubtotal()));
+        assertTrue(cartService.isCartEmpty(userId));
+    }
+
+    private Long newCategory() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Checkout " + System.nanoTime());
+        category.setDescription("Checkout validation");
+        return categoryService.createCategory(category).getId();
+    }
+
+    private ProductDTO newProduct(Long categoryId, String price, int stock) {
+        ProductDTO product = new ProductDTO();
+        product.setName("Checkout product " + System.nanoTime());
+        product.setDescription("Checkout validation");
+        product.setPrice(new BigDecimal(price));
+        product.setStock(stock);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product);
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Checkout");
+        user.setEmail("checkout" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+}
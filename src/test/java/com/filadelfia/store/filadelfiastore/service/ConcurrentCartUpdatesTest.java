@@ -0,0 +1,117 @@
+package com.filadelfia.store.filadelfiastore.service;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CartDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Parallel clicks on one cart: the optimistic version check turns a lost
+ * update into a retry, so every increment lands and the total matches the
+ * lines.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:concurrentcartdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.jpa.show-sql=false"
+})
+class ConcurrentCartUpdatesTest {
+
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 6;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void concurrentIncrementsOnOneCartAreNeverLost() throws Exception {
+        List<Long> productIds = List.of(newProduct("2.00"), newProduct("3.50"));
+        Long userId = newUser();
+
+        // The first burst also races to create the cart itself
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        for (int round = 0; round < ROUNDS; round++) {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<CartItemDTO>> clicks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Long productId = productIds.get(i % productIds.size());
+                clicks.add(pool.submit(() -> {
+                    start.await();
+                    return cartService.addItemToCart(userId, productId, 1);
+                }));
+            }
+            start.countDown();
+            for (Future<CartItemDTO> click : clicks) {
+                click.get(1, TimeUnit.MINUTES);
+            }
+        }
+        pool.shutdown();
+
+        CartDTO cart = cartService.getCartByUserId(userId);
+        Map<Long, Integer> quantities = cart.getItems().stream()
+            .collect(Collectors.toMap(CartItemDTO::getProductId, CartItemDTO::getQuantity));
+        int perProduct = ROUNDS * THREADS / productIds.size();
+        assertEquals(Map.of(productIds.get(0), perProduct, productIds.get(1), perProduct), quantities);
+        BigDecimal expectedTotal = new BigDecimal("5.50").multiply(BigDecimal.valueOf(perProduct));
+        assertEquals(0, expectedTotal.compareTo(cart.getTotal()), "cart total " + cart.getTotal());
+    }
+
+    private Long newProduct(String price) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Concurrent cart " + System.nanoTime());
+        category.setDescription("Optimistic retries");
+        category = categoryService.createCategory(category);
+
+        ProductDTO product = new ProductDTO();
+        product.setName("Concurrent product " + System.nanoTime());
+        product.setDescription("Optimistic retries");
+        product.setPrice(new BigDecimal(price));
+        product.setStock(1000);
+        product.setCategoryId(category.getId());
+        return productService.createProduct(product).getId();
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Concurrent cart");
+        user.setEmail("concurrentcart" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,192 @@
+package com.filadelfia.store.filadelfiastore.service;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.OrderDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the JDBC statements one checkout prepares, at the connection, so
+ * Hibernate's statements and the JdbcTemplate stock reservation batch are
+ * both included. Order items and reserved lines are written in batches, so
+ * a 30-line order costs as many statements as a 3-line one.
+ */
+@SpringBootTest
+@Import({TestConfig.class, OrderCheckoutStatementsTest.CountingDataSourceConfig.class})
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:checkoutstatementsdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class OrderCheckoutStatementsTest {
+
+    // Everything one checkout prepares, the reservation batch included
+    private static final long MAX_STATEMENTS = 11;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final List<Long> productIds = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        if (!productIds.isEmpty()) {
+            return;
+        }
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Checkout " + System.nanoTime());
+        category.setDescription("Statement counting");
+        category = categoryService.createCategory(category);
+
+        for (int i = 0; i < 30; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Checkout product " + i);
+            product.setDescription("Statement counting");
+            product.setPrice(new BigDecimal("10.00"));
+            product.setStock(1000);
+            product.setCategoryId(category.getId());
+            productIds.add(productService.createProduct(product).getId());
+        }
+    }
+
+    @Test
+    void statementsPerCheckoutDoNotGrowWithTheNumberOfLines() {
+        // The first checkouts also read the id sequences until the first
+        // full block of 50 ids is allocated
+        statementsForCheckoutOf(1);
+        statementsForCheckoutOf(1);
+
+        long small = statementsForCheckoutOf(3);
+        long large = statementsForCheckoutOf(30);
+
+        assertEquals(small, large);
+        assertTrue(large <= MAX_STATEMENTS, "a checkout prepared " + large + " statements");
+    }
+
+    private long statementsForCheckoutOf(int lines) {
+        Long userId = newUser();
+        for (int i = 0; i < lines; i++) {
+            cartService.addItemToCart(userId, productIds.get(i), 1);
+        }
+
+        CountingDataSource.reset();
+        OrderDTO order = orderService.createOrderFromCart(userId, PaymentMethod.PIX, "Rua A, 1");
+        long statements = CountingDataSource.count();
+
+        assertEquals(lines, order.getItems().size());
+        assertEquals(0, new BigDecimal("10.00").multiply(BigDecimal.valueOf(lines)).compareTo(order.getTotal()));
+        return statements;
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Checkout");
+        user.setEmail("checkout" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+
+    @TestConfiguration
+    static class CountingDataSourceConfig {
+
+        @Bean
+        static BeanPostProcessor countingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof CountingDataSource)
+                        ? new CountingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Counts the statements prepared on connections of the calling thread,
+     * so the schedulers running in the background do not disturb a count.
+     */
+    static final class CountingDataSource extends DelegatingDataSource {
+
+        private static final Set<String> PREPARING = Set.of("prepareStatement", "prepareCall", "createStatement");
+        private static final ThreadLocal<long[]> PREPARED = ThreadLocal.withInitial(() -> new long[1]);
+
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static void reset() {
+            PREPARED.get()[0] = 0;
+        }
+
+        static long count() {
+            return PREPARED.get()[0];
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (PREPARING.contains(method.getName())) {
+                        PREPARED.get()[0]++;
+                    }
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.filadelfia.store.filadelfiastore.service;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.OrderDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.OrderStatus;
+import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the JDBC statements one order list page prepares. Summaries come
+ * with their customer and the lines of the whole page are read at once, so
+ * a 20-row page costs as many statements as a 5-row one.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:orderliststatementsdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false"
+})
+class OrderListStatementsTest {
+
+    private static final int ORDERS = 25;
+    private static final int LINES_PER_ORDER = 3;
+    // The page of summaries, its count and the lines of the whole page
+    private static final long MAX_STATEMENTS = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    // Seeded once for all tests of the class
+    private static Long userId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (userId != null) {
+            return;
+        }
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Order list " + System.nanoTime());
+        category.setDescription("Statement counting");
+        category = categoryService.createCategory(category);
+
+        List<Long> productIds = new ArrayList<>();
+        for (int i = 0; i < LINES_PER_ORDER; i++) {
+            ProductDTO product = new ProductDTO();
+            product.setName("Order list product " + i);
+            product.setDescription("Statement counting");
+            product.setPrice(new BigDecimal("10.00"));
+            product.setStock(1000);
+            product.setCategoryId(category.getId());
+            productIds.add(productService.createProduct(product).getId());
+        }
+
+        userId = newUser();
+        for (int order = 0; order < ORDERS; order++) {
+            for (Long productId : productIds) {
+                cartService.addItemToCart(userId, productId, 1);
+            }
+            orderService.createOrderFromCart(userId, PaymentMethod.PIX, "Rua A, 1");
+        }
+    }
+
+    @Test
+    void allOrdersPagesIssueAConstantNumberOfStatements() {
+        assertConstant("all orders", size -> orderService.getAllOrders(PageRequest.of(0, size)));
+    }
+
+    @Test
+    void userOrdersPagesIssueAConstantNumberOfStatements() {
+        assertConstant("user orders", size -> orderService.getUserOrders(userId, PageRequest.of(0, size)));
+    }
+
+    @Test
+    void ordersByStatusPagesIssueAConstantNumberOfStatements() {
+        assertConstant("orders by status", size -> orderService.getOrdersByStatus(OrderStatus.PENDING, PageRequest.of(0, size)));
+    }
+
+    private void assertConstant(String listing, IntFunction<Page<OrderDTO>> page) {
+        long small = statementsFor(() -> page.apply(5), 5);
+        long large = statementsFor(() -> page.apply(20), 20);
+
+        assertEquals(small, large, listing);
+        assertTrue(large <= MAX_STATEMENTS, listing + " page prepared " + large + " statements");
+    }
+
+    private long statementsFor(Supplier<Page<OrderDTO>> listing, int rows) {
+        statistics.clear();
+        Page<OrderDTO> page = listing.get();
+        long statements = statistics.getPrepareStatementCount();
+
+        assertEquals(rows, page.getContent().size());
+        for (OrderDTO order : page.getContent()) {
+            assertNotNull(order.getUserName());
+            assertEquals(LINES_PER_ORDER, order.getItems().size());
+            assertNotNull(order.getItems().get(0).getProductName());
+        }
+        return statements;
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Order list");
+        user.setEmail("orderlist" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,279 @@
+package com.filadelfia.store.filadelfiastore.service;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.exception.custom.InsufficientStockException;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.OrderDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.Order;
+import com.filadelfia.store.filadelfiastore.model.entity.Payment;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.OrderStatus;
+import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
+import com.filadelfia.store.filadelfiastore.model.enums.PaymentStatus;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.OrderRepository;
+import com.filadelfia.store.filadelfiastore.repository.PaymentRepository;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.PaymentService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+/**
+ * Stock is taken when an order is placed and comes back exactly once when
+ * the order is cancelled, whichever path cancels it and however many of
+ * them run at the same time.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:stockreservationdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.jpa.show-sql=false"
+})
+class StockReservationTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private TransactionTemplate transaction;
+
+    // Shared by all tests of the class
+    private static Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        if (categoryId != null) {
+            return;
+        }
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Stock " + System.nanoTime());
+        category.setDescription("Stock reservations");
+        categoryId = categoryService.createCategory(category).getId();
+    }
+
+    @Test
+    void concurrentCheckoutsNeverSellMoreThanTheStock() throws Exception {
+        Long productId = newProduct(5);
+        List<Long> buyers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Long userId = newUser();
+            cartService.addItemToCart(userId, productId, 1);
+            buyers.add(userId);
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(buyers.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<OrderDTO>> checkouts = new ArrayList<>();
+        for (Long userId : buyers) {
+            checkouts.add(pool.submit(() -> {
+                start.await();
+                return orderService.createOrderFromCart(userId, PaymentMethod.PIX, "Rua A, 1");
+            }));
+        }
+        start.countDown();
+
+        int placed = 0;
+        int refused = 0;
+        for (Future<OrderDTO> checkout : checkouts) {
+            try {
+                checkout.get(1, TimeUnit.MINUTES);
+                placed++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(InsufficientStockException.class, e.getCause());
+                refused++;
+            }
+        }
+        pool.shutdown();
+
+        assertEquals(5, placed);
+        assertEquals(5, refused);
+        assertEquals(0, stockOf(productId));
+    }
+
+    @Test
+    void cancellingAnOrderReleasesItsStockOnce() {
+        Long productId = newProduct(10);
+        OrderDTO order = placeOrder(productId, 3);
+        assertEquals(7, stockOf(productId));
+
+        orderService.cancelOrder(order.getId());
+        orderService.cancelOrder(order.getId());
+
+        assertEquals(10, stockOf(productId));
+    }
+
+    @Test
+    void cancelledStatusFromTheAdminScreensReleasesStock() {
+        Long productId = newProduct(10);
+        OrderDTO order = placeOrder(productId, 4);
+
+        orderService.updateOrderStatus(order.getId(), OrderStatus.CANCELLED);
+        orderService.updateOrderStatus(order.getId(), OrderStatus.CANCELLED);
+
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+        assertEquals(10, stockOf(productId));
+    }
+
+    @Test
+    void cancellationRacingThePaymentExpiryReleasesStockOnce() throws Exception {
+        Long productId = newProduct(10);
+        OrderDTO order = placeOrder(productId, 2);
+        transaction.executeWithoutResult(status -> {
+            Order placed = orderRepository.findById(order.getId()).orElseThrow();
+            Payment payment = new Payment(placed, PaymentMethod.PIX, placed.getTotal(), "PAY-RACE-" + placed.getId());
+            payment.setExpiresAt(LocalDateTime.now().minusMinutes(1));
+            paymentRepository.save(payment);
+        });
+
+        // Both transactions load the still reserved order before either releases it
+        CyclicBarrier loaded = new CyclicBarrier(2);
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        Future<?> cancel = pool.submit(() -> transaction.executeWithoutResult(status -> {
+            orderRepository.findById(order.getId()).orElseThrow();
+            await(loaded);
+            orderService.cancelOrder(order.getId());
+        }));
+        Future<?> expiry = pool.submit(() -> transaction.executeWithoutResult(status -> {
+            orderRepository.findById(order.getId()).orElseThrow();
+            await(loaded);
+            paymentService.processExpiredPayments();
+        }));
+        cancel.get(1, TimeUnit.MINUTES);
+        expiry.get(1, TimeUnit.MINUTES);
+        pool.shutdown();
+
+        assertEquals(OrderStatus.CANCELLED, orderRepository.findById(order.getId()).orElseThrow().getStatus());
+        assertEquals(10, stockOf(productId));
+    }
+
+    @Test
+    void abandonedOrdersWithoutALivePaymentAreCancelled() {
+        Long productId = newProduct(20);
+        OrderDTO neverPaid = placeOrder(productId, 1);
+        OrderDTO paymentFailed = placeOrder(productId, 2);
+        OrderDTO stillPaying = placeOrder(productId, 3);
+        OrderDTO recent = placeOrder(productId, 4);
+        placedDaysAgo(neverPaid, 5);
+        placedDaysAgo(paymentFailed, 5);
+        placedDaysAgo(stillPaying, 5);
+        addPayment(paymentFailed, PaymentStatus.FAILED);
+        addPayment(stillPaying, PaymentStatus.PROCESSING);
+        assertEquals(10, stockOf(productId));
+
+        paymentService.cancelAbandonedOrders(Date.valueOf(LocalDate.now().minusDays(2)));
+
+        assertEquals(OrderStatus.CANCELLED, statusOf(neverPaid));
+        assertEquals(OrderStatus.CANCELLED, statusOf(paymentFailed));
+        assertEquals(OrderStatus.PENDING, statusOf(stillPaying));
+        assertEquals(OrderStatus.PENDING, statusOf(recent));
+        assertEquals(13, stockOf(productId));
+    }
+
+    private void placedDaysAgo(OrderDTO order, int days) {
+        Order placed = orderRepository.findById(order.getId()).orElseThrow();
+        placed.setCreatedAt(Date.valueOf(LocalDate.now().minusDays(days)));
+        orderRepository.save(placed);
+    }
+
+    private void addPayment(OrderDTO order, PaymentStatus status) {
+        transaction.executeWithoutResult(tx -> {
+            Order placed = orderRepository.findById(order.getId()).orElseThrow();
+            Payment payment = new Payment(placed, PaymentMethod.PIX, placed.getTotal(), "PAY-" + status + "-" + placed.getId());
+            payment.updateStatus(status);
+            paymentRepository.save(payment);
+        });
+    }
+
+    private OrderStatus statusOf(OrderDTO order) {
+        return orderRepository.findById(order.getId()).orElseThrow().getStatus();
+    }
+
+    private OrderDTO placeOrder(Long productId, int quantity) {
+        Long userId = newUser();
+        cartService.addItemToCart(userId, productId, quantity);
+        return orderService.createOrderFromCart(userId, PaymentMethod.PIX, "Rua A, 1");
+    }
+
+    private int stockOf(Long productId) {
+        return productRepository.findById(productId).orElseThrow().getStock();
+    }
+
+    private Long newProduct(int stock) {
+        ProductDTO product = new ProductDTO();
+        product.setName("Reserved product " + System.nanoTime());
+        product.setDescription("Stock reservations");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(stock);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product).getId();
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Stock");
+        user.setEmail("stock" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(1, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
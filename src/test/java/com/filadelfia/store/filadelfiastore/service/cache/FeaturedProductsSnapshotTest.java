@@ -0,0 +1,126 @@
+package com.filadelfia.store.filadelfiastore.service.cache;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.PaymentMethod;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.OrderService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The featured shelf follows a checkout taking stock from a shown product
+ * and a rename of a shown product's category, not only product edits.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:featuredsnapshotdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false"
+})
+class FeaturedProductsSnapshotTest {
+
+    @Autowired
+    private FeaturedProductsSnapshot snapshot;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void shownStockFollowsCheckouts() throws Exception {
+        Long productId = newFeaturedProduct(newCategory("Shelf stock"));
+        assertEquals(10, awaitShown(productId, ProductDTO::getStock, 10));
+
+        Long userId = newUser();
+        cartService.addItemToCart(userId, productId, 3);
+        orderService.createOrderFromCart(userId, PaymentMethod.PIX, "Rua A, 1");
+
+        assertEquals(7, awaitShown(productId, ProductDTO::getStock, 7));
+    }
+
+    @Test
+    void shownCategoryNameFollowsARename() throws Exception {
+        CategoryDTO category = newCategory("Shelf before");
+        Long productId = newFeaturedProduct(category);
+        assertEquals(category.getName(), awaitShown(productId, ProductDTO::getCategoryName, category.getName()));
+
+        category.setName("Shelf after " + System.nanoTime());
+        categoryService.updateCategory(category.getId(), category);
+
+        assertEquals(category.getName(), awaitShown(productId, ProductDTO::getCategoryName, category.getName()));
+    }
+
+    // The shelf is rebuilt in the background, so give it a moment to catch up
+    private <T> T awaitShown(Long productId, Function<ProductDTO, T> field, T expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        T shown = shown(productId, field);
+        while (!expected.equals(shown) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+            shown = shown(productId, field);
+        }
+        return shown;
+    }
+
+    private <T> T shown(Long productId, Function<ProductDTO, T> field) {
+        return snapshot.get().stream()
+            .filter(product -> product.getId().equals(productId))
+            .findFirst()
+            .map(field)
+            .orElse(null);
+    }
+
+    private CategoryDTO newCategory(String name) {
+        CategoryDTO category = new CategoryDTO();
+        category.setName(name + " " + System.nanoTime());
+        category.setDescription("Featured shelf");
+        return categoryService.createCategory(category);
+    }
+
+    private Long newFeaturedProduct(CategoryDTO category) {
+        ProductDTO product = new ProductDTO();
+        product.setName("Featured product " + System.nanoTime());
+        product.setDescription("Featured shelf");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(10);
+        product.setCategoryId(category.getId());
+        Long productId = productService.createProduct(product).getId();
+        productService.setProductFeatured(productId, true);
+        return productId;
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Shelf");
+        user.setEmail("shelf" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,67 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * What a restart replays from the journal left behind by a crash.
+ */
+class CartJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void laterSetsOverrideEarlierOnes() {
+        CartJournal journal = new CartJournal(directory, false);
+        journal.appendSet(1L, 10L, 2, new BigDecimal("5.00"));
+        journal.appendSet(1L, 10L, 3, new BigDecimal("5.00"));
+        journal.close();
+
+        CartJournal.Replay replay = new CartJournal(directory, false).recover().get(1L);
+
+        assertFalse(replay.isCleared());
+        assertEquals(3, replay.getOverrides().get(10L).getQuantity());
+    }
+
+    @Test
+    void replacementDropsTheLinesJournaledBeforeIt() {
+        CartJournal journal = new CartJournal(directory, false);
+        journal.appendSet(1L, 10L, 2, new BigDecimal("5.00"));
+        journal.appendSet(1L, 11L, 1, new BigDecimal("8.00"));
+        // A merge or repricing rewrote the cart in the database
+        journal.appendReplace(1L, List.of(new CartLine(10L, 4, new BigDecimal("4.50"))));
+        journal.close();
+
+        CartJournal.Replay replay = new CartJournal(directory, false).recover().get(1L);
+
+        assertTrue(replay.isCleared());
+        assertEquals(1, replay.getOverrides().size());
+        assertEquals(4, replay.getOverrides().get(10L).getQuantity());
+        assertEquals(0, new BigDecimal("4.50").compareTo(replay.getOverrides().get(10L).getUnitPrice()));
+    }
+
+    @Test
+    void discardedSegmentsAreNotReplayed() {
+        CartJournal journal = new CartJournal(directory, false);
+        journal.appendSet(1L, 10L, 2, new BigDecimal("5.00"));
+        journal.seal();
+        journal.discardSealed();
+        journal.appendClear(2L);
+        journal.close();
+
+        Map<Long, CartJournal.Replay> replays = new CartJournal(directory, false).recover();
+
+        assertEquals(List.of(2L), List.copyOf(replays.keySet()));
+        assertTrue(replays.get(2L).isCleared());
+    }
+}
@@ -0,0 +1,154 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.CartItem;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.CartItemRepository;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Clicks racing the flusher's eviction of clean carts, or a checkout
+ * validation that drops and reloads the cart: an acknowledged click always
+ * ends up in the database.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:writebehindevictiondb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.jpa.show-sql=false",
+    "app.cart.write-behind.enabled=true",
+    "app.cart.write-behind.journal-dir=target/write-behind-eviction-journal",
+    "app.cart.write-behind.flush-interval-ms=1",
+    "app.cart.write-behind.max-carts=1"
+})
+class WriteBehindCartEvictionTest {
+
+    private static final int USERS = 4;
+    private static final int CLICKS = 150;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Test
+    void clicksOnCartsBeingEvictedAreNeverLost() throws Exception {
+        Long productId = newProduct();
+        List<Long> userIds = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            userIds.add(newUser());
+        }
+
+        // More carts than max-carts, so every flush evicts the clean ones
+        ExecutorService pool = Executors.newFixedThreadPool(USERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> clickers = new ArrayList<>();
+        for (Long userId : userIds) {
+            clickers.add(pool.submit(() -> {
+                start.await();
+                for (int click = 0; click < CLICKS; click++) {
+                    cartService.addItemToCart(userId, productId, 1);
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> clicker : clickers) {
+            clicker.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        for (Long userId : userIds) {
+            assertEquals(CLICKS, cartService.getTotalItemsInCart(userId));
+            assertEquals(CLICKS, persistedQuantity(userId));
+        }
+    }
+
+    @Test
+    void clicksRacingACheckoutValidationAreNeverLost() throws Exception {
+        Long productId = newProduct();
+        Long userId = newUser();
+
+        // Validation flushes, drops and reprices the cart while clicks keep arriving
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?> clicker = pool.submit(() -> {
+            start.await();
+            for (int click = 0; click < CLICKS; click++) {
+                cartService.addItemToCart(userId, productId, 1);
+            }
+            return null;
+        });
+        start.countDown();
+        while (!clicker.isDone()) {
+            cartService.validateForCheckout(userId);
+        }
+        clicker.get(2, TimeUnit.MINUTES);
+        pool.shutdown();
+
+        assertEquals(CLICKS, cartService.getTotalItemsInCart(userId));
+        assertEquals(CLICKS, persistedQuantity(userId));
+    }
+
+    private int persistedQuantity(Long userId) {
+        // A checkout read flushes the cart before loading it
+        cartService.findCartByUserId(userId);
+        return cartItemRepository.findByUserId(userId).stream().mapToInt(CartItem::getQuantity).sum();
+    }
+
+    private Long newProduct() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Eviction " + System.nanoTime());
+        category.setDescription("Write-behind eviction");
+        Long categoryId = categoryService.createCategory(category).getId();
+
+        ProductDTO product = new ProductDTO();
+        product.setName("Evicted product " + System.nanoTime());
+        product.setDescription("Write-behind eviction");
+        product.setPrice(new BigDecimal("2.00"));
+        product.setStock(10_000);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product).getId();
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Eviction");
+        user.setEmail("eviction" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+}
@@ -0,0 +1,187 @@
+package com.filadelfia.store.filadelfiastore.service.cart;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.exception.custom.ResourceNotFoundException;
+import com.filadelfia.store.filadelfiastore.model.dto.CartDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CartItemUpdateDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.CartItem;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.CartItemRepository;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Clicks on the write-behind engine reach the database on the next flush,
+ * and its batch update loads products new to the cart together, rejecting
+ * the batch before any line changes when one is unknown.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:writebehindcartdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "app.cart.write-behind.enabled=true",
+    "app.cart.write-behind.journal-dir=target/write-behind-cart-journal",
+    "app.cart.write-behind.flush-interval-ms=100"
+})
+class WriteBehindCartUpdatesTest {
+
+    private static final Long UNKNOWN_PRODUCT_ID = 999_999L;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    // Shared by all tests of the class
+    private static Long categoryId;
+
+    @BeforeEach
+    void setUp() {
+        if (categoryId != null) {
+            return;
+        }
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Write-behind " + System.nanoTime());
+        category.setDescription("Batch cart updates");
+        categoryId = categoryService.createCategory(category).getId();
+    }
+
+    @Test
+    void theFlusherWritesClicksWithoutACheckoutRead() throws Exception {
+        Long productId = newProduct("5.50");
+        Long userId = newUser();
+        for (int click = 0; click < 5; click++) {
+            cartService.addItemToCart(userId, productId, 1);
+        }
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(10);
+        while (persistedQuantity(userId) != 5 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertEquals(5, persistedQuantity(userId));
+    }
+
+    @Test
+    void clearEmptiesTheCartInMemoryAndInTheDatabase() {
+        Long first = newProduct("2.00");
+        Long second = newProduct("3.00");
+        Long userId = newUser();
+        cartService.addItemToCart(userId, first, 1);
+        cartService.addItemToCart(userId, second, 2);
+
+        cartService.clearCart(userId);
+
+        assertTrue(cartService.isCartEmpty(userId));
+        cartService.findCartByUserId(userId);
+        assertEquals(0, persistedQuantity(userId));
+    }
+
+    @Test
+    void batchSetsRemovesAndAddsLines() {
+        assertInstanceOf(WriteBehindCartService.class, cartService);
+        Long kept = newProduct("2.00");
+        Long removed = newProduct("3.00");
+        Long added = newProduct("4.50");
+        Long userId = newUser();
+        cartService.addItemToCart(userId, kept, 1);
+        cartService.addItemToCart(userId, removed, 1);
+
+        CartDTO cart = cartService.updateCartItems(userId, List.of(
+            change(kept, 5), change(removed, 0), change(added, 2)));
+
+        assertEquals(Map.of(kept, 5, added, 2), quantitiesOf(cart));
+        assertEquals(0, new BigDecimal("19.00").compareTo(cart.getTotal()));
+    }
+
+    @Test
+    void unknownProductRejectsTheWholeBatch() {
+        Long kept = newProduct("2.00");
+        Long added = newProduct("4.50");
+        Long userId = newUser();
+        cartService.addItemToCart(userId, kept, 1);
+
+        assertThrows(ResourceNotFoundException.class, () -> cartService.updateCartItems(userId, List.of(
+            change(kept, 5), change(added, 2), change(UNKNOWN_PRODUCT_ID, 1))));
+
+        assertEquals(Map.of(kept, 1), quantitiesOf(cartService.getCartByUserId(userId)));
+    }
+
+    @Test
+    void requireProductsLoadsKnownIdsAndRefusesUnknownOnes() {
+        Long first = newProduct("2.00");
+        Long second = newProduct("3.00");
+
+        assertEquals(List.of(first, second),
+            cartService.requireProducts(List.of(first, second)).keySet().stream().sorted().toList());
+        assertEquals(Map.of(), cartService.requireProducts(List.of()));
+        assertThrows(ResourceNotFoundException.class,
+            () -> cartService.requireProducts(List.of(first, UNKNOWN_PRODUCT_ID)));
+    }
+
+    private int persistedQuantity(Long userId) {
+        return cartItemRepository.findByUserId(userId).stream().mapToInt(CartItem::getQuantity).sum();
+    }
+
+    private static Map<Long, Integer> quantitiesOf(CartDTO cart) {
+        return cart.getItems().stream()
+            .collect(Collectors.toMap(CartItemDTO::getProductId, CartItemDTO::getQuantity));
+    }
+
+    private static CartItemUpdateDTO change(Long productId, int quantity) {
+        return new CartItemUpdateDTO(productId, quantity);
+    }
+
+    private Long newProduct(String price) {
+        ProductDTO product = new ProductDTO();
+        product.setName("Batch product " + System.nanoTime());
+        product.setDescription("Batch cart updates");
+        product.setPrice(new BigDecimal(price));
+        product.setStock(100);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product).getId();
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Batch");
+        user.setEmail("batch" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+}
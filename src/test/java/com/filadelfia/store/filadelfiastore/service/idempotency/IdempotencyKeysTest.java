@@ -0,0 +1,129 @@
+package com.filadelfia.store.filadelfiastore.service.idempotency;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.exception.custom.RepeatedRequestException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A key runs its work once: repeats with the same values get the first
+ * result back, repeats with other values are refused, and a failed attempt
+ * leaves the key free for the next one.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:idempotencykeysdb;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+    "spring.jpa.show-sql=false"
+})
+class IdempotencyKeysTest {
+
+    private static final String SCOPE = "test:submit";
+    private static final Long USER_ID = 1L;
+
+    @Autowired
+    private IdempotencyKeys idempotencyKeys;
+
+    private final AtomicInteger runs = new AtomicInteger();
+    private final AtomicLong nextId = new AtomicLong(100);
+
+    @Test
+    void sameKeyAndValuesReplayTheFirstResult() {
+        String key = idempotencyKeys.issue();
+
+        String first = submit(key, USER_ID, "Rua A", this::work);
+        String second = submit(key, USER_ID, "Rua A", this::work);
+
+        assertEquals(1, runs.get());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void sameKeyWithOtherValuesIsRefused() {
+        String key = idempotencyKeys.issue();
+        submit(key, USER_ID, "Rua A", this::work);
+
+        assertThrows(RepeatedRequestException.class, () -> submit(key, USER_ID, "Rua B", this::work));
+        assertThrows(RepeatedRequestException.class, () -> submit(key, 2L, "Rua A", this::work));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void failedWorkLeavesTheKeyFreeForARetry() {
+        String key = idempotencyKeys.issue();
+
+        assertThrows(IllegalStateException.class, () -> submit(key, USER_ID, "Rua A", () -> {
+            throw new IllegalStateException("Carrinho está vazio!");
+        }));
+        submit(key, USER_ID, "Rua A", this::work);
+        submit(key, USER_ID, "Rua A", this::work);
+
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void concurrentRepeatsRunTheWorkOnce() throws Exception {
+        String key = idempotencyKeys.issue();
+        ExecutorService pool = Executors.newFixedThreadPool(5);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> submissions = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            submissions.add(pool.submit(() -> {
+                start.await();
+                return submit(key, USER_ID, "Rua A", this::slowWork);
+            }));
+        }
+        start.countDown();
+
+        String first = submissions.get(0).get(1, TimeUnit.MINUTES);
+        for (Future<String> submission : submissions) {
+            assertEquals(first, submission.get(1, TimeUnit.MINUTES));
+        }
+        pool.shutdown();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void withoutAKeyTheWorkAlwaysRuns() {
+        submit(null, USER_ID, "Rua A", this::work);
+        submit(null, USER_ID, "Rua A", this::work);
+
+        assertEquals(2, runs.get());
+    }
+
+    private String submit(String key, Long userId, String street, Supplier<String> work) {
+        return idempotencyKeys.execute(SCOPE, userId, key, IdempotencyKeys.fingerprint(street, "1"),
+            work, result -> Long.valueOf(result.substring(4)), id -> "RES-" + id);
+    }
+
+    private String work() {
+        runs.incrementAndGet();
+        return "RES-" + nextId.incrementAndGet();
+    }
+
+    private String slowWork() {
+        try {
+            Thread.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return work();
+    }
+}
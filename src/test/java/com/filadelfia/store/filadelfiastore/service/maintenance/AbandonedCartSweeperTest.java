@@ -0,0 +1,123 @@
+package com.filadelfia.store.filadelfiastore.service.maintenance;
+
+import com.filadelfia.store.filadelfiastore.config.TestConfig;
+import com.filadelfia.store.filadelfiastore.model.dto.CategoryDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.entity.Cart;
+import com.filadelfia.store.filadelfiastore.model.entity.User;
+import com.filadelfia.store.filadelfiastore.model.enums.UserRole;
+import com.filadelfia.store.filadelfiastore.repository.CartItemRepository;
+import com.filadelfia.store.filadelfiastore.repository.CartRepository;
+import com.filadelfia.store.filadelfiastore.repository.UserRepository;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CartService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.CategoryService;
+import com.filadelfia.store.filadelfiastore.service.interfaces.ProductService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Only carts idle past the retention period are purged, across chunk
+ * boundaries, items first.
+ */
+@SpringBootTest
+@Import(TestConfig.class)
+@TestPropertySource(properties = {
+    "spring.datasource.url=jdbc:h2:mem:abandonedcartsweeperdb;DB_CLOSE_DELAY=-1",
+    "spring.jpa.show-sql=false",
+    "app.cart.sweeper.chunk-size=3"
+})
+class AbandonedCartSweeperTest {
+
+    @Autowired
+    private AbandonedCartSweeper sweeper;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private CartItemRepository cartItemRepository;
+
+    @Autowired
+    private TransactionTemplate transaction;
+
+    @Test
+    void purgesIdleCartsAndKeepsRecentOnes() {
+        Long productId = newProduct();
+        List<Long> recent = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Long userId = newUser();
+            cartService.addItemToCart(userId, productId, 1);
+            if (i % 3 == 0) {
+                recent.add(userId);
+            } else {
+                idleFor(userId, 40);
+            }
+        }
+
+        sweeper.sweep();
+
+        assertEquals(recent.size(), cartRepository.count());
+        assertEquals(recent.size(), cartItemRepository.count());
+        for (Long userId : recent) {
+            assertTrue(cartRepository.findByUserId(userId).isPresent());
+        }
+        assertEquals(6L, sweeper.stats().get("cartsPurged"));
+        assertEquals(6L, sweeper.stats().get("itemsPurged"));
+    }
+
+    private void idleFor(Long userId, int days) {
+        transaction.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findByUserId(userId).orElseThrow();
+            cart.setUpdatedAt(new Date(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(days)));
+        });
+    }
+
+    private Long newProduct() {
+        CategoryDTO category = new CategoryDTO();
+        category.setName("Sweeper " + System.nanoTime());
+        category.setDescription("Abandoned carts");
+        Long categoryId = categoryService.createCategory(category).getId();
+
+        ProductDTO product = new ProductDTO();
+        product.setName("Abandoned product " + System.nanoTime());
+        product.setDescription("Abandoned carts");
+        product.setPrice(new BigDecimal("5.50"));
+        product.setStock(100);
+        product.setCategoryId(categoryId);
+        return productService.createProduct(product).getId();
+    }
+
+    private Long newUser() {
+        User user = new User();
+        user.setName("Sweeper");
+        user.setEmail("sweeper" + System.nanoTime() + "@example.com");
+        user.setPassword("secret");
+        user.setRole(UserRole.USER);
+        return userRepository.save(user).getId();
+    }
+}
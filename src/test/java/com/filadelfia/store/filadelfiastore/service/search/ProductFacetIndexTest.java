@@ -0,0 +1,70 @@
+package com.filadelfia.store.filadelfiastore.service.search;
+
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.event.StockChangedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.FacetCountDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.FacetedSearchResultDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductFacetQuery;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static com.filadelfia.store.filadelfiastore.service.search.ProductSearchIndexTest.product;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Facet counts follow stock and product changes, including those published
+ * while the index is being rebuilt.
+ */
+class ProductFacetIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductFacetIndex index =
+        new ProductFacetIndex(productRepository, new ProductSearchIndex(productRepository));
+
+    @Test
+    void stockChangesMoveTheInStockCounts() {
+        when(productRepository.findActiveDetails()).thenReturn(List.of(product(1L, "Bíblia"), product(2L, "Caneca")));
+        index.rebuild();
+        assertEquals(2, inStockCount(search()));
+
+        ProductDTO soldOut = product(1L, "Bíblia");
+        soldOut.setStock(0);
+        index.onStockChanged(new StockChangedEvent(List.of(soldOut), true));
+
+        FacetedSearchResultDTO result = search();
+        assertEquals(1, inStockCount(result));
+        assertEquals(0, result.getItems().get(0).getStock());
+    }
+
+    @Test
+    void changesPublishedDuringARebuildSurviveTheSwap() {
+        when(productRepository.findActiveDetails()).thenAnswer(invocation -> {
+            index.onProductChanged(new ProductChangedEvent(product(3L, "Vela")));
+            ProductDTO soldOut = product(1L, "Bíblia");
+            soldOut.setStock(0);
+            index.onStockChanged(new StockChangedEvent(List.of(soldOut), true));
+            return List.of(product(1L, "Bíblia"), product(2L, "Caneca"));
+        });
+        index.rebuild();
+
+        FacetedSearchResultDTO result = search();
+        assertEquals(3, result.getTotalElements());
+        assertEquals(2, inStockCount(result));
+    }
+
+    private FacetedSearchResultDTO search() {
+        return index.search(new ProductFacetQuery());
+    }
+
+    private static long inStockCount(FacetedSearchResultDTO result) {
+        return result.getFacets().get(ProductFacetIndex.IN_STOCK_FACET).stream()
+            .filter(facet -> facet.getValue().equals("true"))
+            .mapToLong(FacetCountDTO::getCount)
+            .sum();
+    }
+}
@@ -0,0 +1,126 @@
+package com.filadelfia.store.filadelfiastore.service.search;
+
+import com.filadelfia.store.filadelfiastore.event.ProductChangedEvent;
+import com.filadelfia.store.filadelfiastore.model.dto.ProductDTO;
+import com.filadelfia.store.filadelfiastore.repository.ProductRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Lookups in the inverted index, typo tolerance, and changes that meet a
+ * rebuild.
+ */
+class ProductSearchIndexTest {
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final ProductSearchIndex index = new ProductSearchIndex(productRepository);
+
+    @Test
+    void findsProductsByAccentFoldedTermsAndPrefixes() {
+        when(productRepository.findActiveDetails()).thenReturn(List.of(
+            product(1L, "Bíblia de Estudo"), product(2L, "Caneca")));
+        index.rebuild();
+
+        assertEquals(List.of(1L), idsOf("biblia"));
+        assertEquals(List.of(1L), idsOf("estu"));
+        assertEquals(List.of(2L), idsOf("Caneca"));
+        assertTrue(idsOf("vela").isEmpty());
+    }
+
+    @Test
+    void changesPublishedDuringARebuildSurviveTheSwap() {
+        // The product is renamed and a new one created while the rebuild reads the old catalog
+        when(productRepository.findActiveDetails()).thenAnswer(invocation -> {
+            index.onProductChanged(new ProductChangedEvent(product(1L, "Harpa Cristã")));
+            index.onProductChanged(new ProductChangedEvent(product(3L, "Vela aromática")));
+            return List.of(product(1L, "Bíblia de Estudo"));
+        });
+        index.rebuild();
+
+        assertEquals(List.of(1L), idsOf("harpa"));
+        assertTrue(idsOf("biblia").isEmpty());
+        assertEquals(List.of(3L), idsOf("vela"));
+    }
+
+    @Test
+    void changesAfterARebuildAreAppliedOnce() {
+        when(productRepository.findActiveDetails()).thenReturn(List.of(product(1L, "Bíblia de Estudo")));
+        index.rebuild();
+
+        ProductDTO inactive = product(1L, "Bíblia de Estudo");
+        inactive.setActive(false);
+        index.onProductChanged(new ProductChangedEvent(inactive));
+
+        assertEquals(0, index.size());
+        assertTrue(idsOf("biblia").isEmpty());
+    }
+
+    @Test
+    void misspelledTermsFallBackToCloseVocabulary() {
+        when(productRepository.findActiveDetails()).thenReturn(List.of(
+            product(1L, "Bíblia de Estudo"), product(2L, "Caneca")));
+        index.rebuild();
+
+        assertEquals(List.of(1L), idsOf("bilbia"));
+        assertEquals(List.of(2L), idsOf("canecca"));
+        assertTrue(idsOf("cbnxca").isEmpty());
+    }
+
+    @Test
+    void closestSpellingSurvivesTheExpansionCap() {
+        // Forty spellings two edits away crowd the one a single edit away
+        List<ProductDTO> catalog = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            catalog.add(product(100L + i, (char) ('f' + i % 20) + "" + (char) ('x' + i / 20) + "vocional"));
+        }
+        catalog.add(product(1L, "devocinal"));
+        when(productRepository.findActiveDetails()).thenReturn(catalog);
+        index.rebuild();
+
+        List<Long> ids = idsOf("devocional");
+
+        assertEquals(20, ids.size());
+        assertEquals(1L, ids.get(0));
+    }
+
+    @Test
+    void editDistanceCountsAdjacentSwapsAsOneEdit() {
+        assertEquals(0, ProductSearchIndex.boundedEditDistance("caneca", "caneca", 2));
+        assertEquals(1, ProductSearchIndex.boundedEditDistance("biblia", "bilbia", 2));
+        assertEquals(1, ProductSearchIndex.boundedEditDistance("caneca", "canecca", 2));
+        assertEquals(1, ProductSearchIndex.boundedEditDistance("ca", "ac", 2));
+        assertEquals(3, ProductSearchIndex.boundedEditDistance("kitten", "sitting", 3));
+        assertEquals(3, ProductSearchIndex.boundedEditDistance("", "abc", 3));
+    }
+
+    @Test
+    void editDistanceStopsAtTheBound() {
+        assertEquals(2, ProductSearchIndex.boundedEditDistance("caneca", "vela", 1));
+        assertEquals(3, ProductSearchIndex.boundedEditDistance("devocional", "xyzwvocional", 2));
+        assertEquals(2, ProductSearchIndex.boundedEditDistance("harpa", "hrpaa", 2));
+    }
+
+    private List<Long> idsOf(String query) {
+        return index.search(query).stream().map(SearchHit::getProductId).toList();
+    }
+
+    static ProductDTO product(Long id, String name) {
+        ProductDTO product = new ProductDTO();
+        product.setId(id);
+        product.setName(name);
+        product.setDescription("");
+        product.setPrice(new BigDecimal("10.00"));
+        product.setStock(5);
+        product.setCategoryId(1L);
+        product.setCategoryName("Livros");
+        return product;
+    }
+}
@@ -0,0 +1,85 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Read-through behaviour of the cache, and above all that a load which
+ * overlaps an invalidation is never kept for the TTL.
+ */
+class BoundedTtlCacheTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void loadsOnceAndServesHitsUntilInvalidated() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>("test", 10, 60_000);
+
+        assertEquals("v1", cache.get(1L, this::load));
+        assertEquals("v1", cache.get(1L, this::load));
+        cache.invalidate(1L);
+        assertEquals("v2", cache.get(1L, this::load));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadOverlappingAnInvalidationIsNotStored() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>("test", 10, 60_000);
+
+        // The write commits and invalidates while the old value is being read
+        String stale = cache.get(1L, key -> {
+            String value = load(key);
+            cache.invalidate(key);
+            return value;
+        });
+
+        assertEquals("v1", stale);
+        assertEquals("v2", cache.get(1L, this::load));
+    }
+
+    @Test
+    void missOverlappingAnInvalidationIsNotStored() {
+        BoundedTtlCache<Long, Optional<String>> cache = new BoundedTtlCache<>("test", 10, 60_000);
+
+        Optional<String> missing = cache.get(1L, key -> {
+            cache.invalidateAll();
+            return Optional.empty();
+        });
+
+        assertEquals(Optional.empty(), missing);
+        assertEquals(Optional.of("found"), cache.get(1L, key -> Optional.of("found")));
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntry() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>("test", 2, 60_000);
+        cache.put(1L, "one");
+        cache.put(2L, "two");
+        cache.get(1L, this::load);
+
+        cache.put(3L, "three");
+
+        assertEquals(1L, cache.stats().get("evictions"));
+        assertEquals("one", cache.get(1L, this::load));
+        assertEquals("v1", cache.get(2L, this::load));
+    }
+
+    @Test
+    void expiredEntriesAreLoadedAgain() {
+        BoundedTtlCache<Long, String> cache = new BoundedTtlCache<>("test", 10, -1);
+
+        cache.get(1L, this::load);
+        cache.get(1L, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    private String load(Long key) {
+        return "v" + loads.incrementAndGet();
+    }
+}
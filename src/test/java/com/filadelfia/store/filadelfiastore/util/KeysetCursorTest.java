@@ -0,0 +1,62 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cursors survive the round trip through a query parameter, and anything
+ * that is not a cursor we issued decodes to empty instead of failing.
+ */
+class KeysetCursorTest {
+
+    @Test
+    void decodesWhatWasEncoded() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode("Café com leite", 42L)).orElseThrow();
+
+        assertEquals("Café com leite", cursor.getSortKey());
+        assertEquals(42L, cursor.getId());
+    }
+
+    @Test
+    void sortKeyMayContainTheSeparator() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode("first line\nsecond line", 7L)).orElseThrow();
+
+        assertEquals("first line\nsecond line", cursor.getSortKey());
+        assertEquals(7L, cursor.getId());
+    }
+
+    @Test
+    void nullSortKeyComesBackEmpty() {
+        KeysetCursor cursor = KeysetCursor.decode(KeysetCursor.encode(null, 3L)).orElseThrow();
+
+        assertEquals("", cursor.getSortKey());
+        assertEquals(3L, cursor.getId());
+    }
+
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String encoded = KeysetCursor.encode("??>>~~", Long.MAX_VALUE);
+
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"), encoded);
+    }
+
+    @Test
+    void missingOrMalformedCursorsDecodeToEmpty() {
+        assertTrue(KeysetCursor.decode(null).isEmpty());
+        assertTrue(KeysetCursor.decode("").isEmpty());
+        assertTrue(KeysetCursor.decode("   ").isEmpty());
+        assertTrue(KeysetCursor.decode("not base64!").isEmpty());
+        assertTrue(KeysetCursor.decode(encodeRaw("no separator")).isEmpty());
+        assertTrue(KeysetCursor.decode(encodeRaw("name\nnot-a-number")).isEmpty());
+        assertTrue(KeysetCursor.decode(encodeRaw("name\n")).isEmpty());
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
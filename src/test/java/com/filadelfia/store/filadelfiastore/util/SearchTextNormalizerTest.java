@@ -0,0 +1,43 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Query text and catalog text must reduce to the same terms, whatever the
+ * accents, casing or number of the words.
+ */
+class SearchTextNormalizerTest {
+
+    @Test
+    void tokenizeFoldsAccentsAndDropsStopWords() {
+        assertEquals(List.of("cancao", "natal"), SearchTextNormalizer.tokenize("Canções de NATAL!"));
+        assertEquals(List.of("biblia", "estudo"), SearchTextNormalizer.tokenize("  Bíblia   de  Estudo "));
+        assertEquals(List.of(), SearchTextNormalizer.tokenize(null));
+    }
+
+    @Test
+    void stemReducesPluralsToTheSingular() {
+        assertEquals("cancao", SearchTextNormalizer.stem("cancoes"));
+        assertEquals("pao", SearchTextNormalizer.stem("paes"));
+        assertEquals("animal", SearchTextNormalizer.stem("animais"));
+        assertEquals("papel", SearchTextNormalizer.stem("papeis"));
+        assertEquals("lencol", SearchTextNormalizer.stem("lencois"));
+        assertEquals("bom", SearchTextNormalizer.stem("bons"));
+        assertEquals("flor", SearchTextNormalizer.stem("flores"));
+        assertEquals("luz", SearchTextNormalizer.stem("luzes"));
+        assertEquals("livro", SearchTextNormalizer.stem("livros"));
+    }
+
+    @Test
+    void stemKeepsWordsThatOnlyLookPlural() {
+        assertEquals("onibus", SearchTextNormalizer.stem("onibus"));
+        assertEquals("lapis", SearchTextNormalizer.stem("lapis"));
+        assertEquals("mais", SearchTextNormalizer.stem("mais"));
+        assertEquals("mas", SearchTextNormalizer.stem("mas"));
+        assertEquals("caneca", SearchTextNormalizer.stem("caneca"));
+    }
+}
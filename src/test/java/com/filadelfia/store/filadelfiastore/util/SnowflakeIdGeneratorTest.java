@@ -0,0 +1,135 @@
+package com.filadelfia.store.filadelfiastore.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ids must never repeat, neither across threads of one node nor across
+ * nodes, and must keep increasing when the sequence runs out or the clock
+ * steps back. The concurrent test also requires a generous floor on
+ * throughput: a contended generator still hands out millions of ids a second.
+ */
+class SnowflakeIdGeneratorTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 250_000;
+    // Well below the ~8 million ids/s measured, so slow machines still pass
+    private static final long MIN_IDS_PER_SECOND = 200_000;
+
+    @Test
+    void concurrentIdsNeverCollide() throws Exception {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, System::currentTimeMillis);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<long[]>> batches = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            batches.add(pool.submit(() -> {
+                start.await();
+                long[] ids = new long[IDS_PER_THREAD];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = generator.nextId();
+                }
+                return ids;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        long[] all = new long[THREADS * IDS_PER_THREAD];
+        int filled = 0;
+        for (Future<long[]> batch : batches) {
+            long[] ids = batch.get(1, TimeUnit.MINUTES);
+            for (int i = 1; i < ids.length; i++) {
+                assertTrue(ids[i] > ids[i - 1], "ids of one thread must keep increasing");
+            }
+            System.arraycopy(ids, 0, all, filled, ids.length);
+            filled += ids.length;
+        }
+        long elapsedNanos = System.nanoTime() - started;
+        pool.shutdown();
+
+        Arrays.sort(all);
+        int collisions = 0;
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                collisions++;
+            }
+        }
+        assertEquals(0, collisions);
+        long idsPerSecond = all.length * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        assertTrue(idsPerSecond >= MIN_IDS_PER_SECOND, "generated only " + idsPerSecond + " ids/s");
+    }
+
+    @Test
+    void exhaustedSequenceMovesToTheNextMillisecond() {
+        long now = System.currentTimeMillis();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> now);
+
+        long previous = generator.nextId();
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+        // 4096 ids per millisecond: 10001 ids borrow two milliseconds ahead of the clock
+        assertEquals(now + 2, SnowflakeIdGenerator.timestampOf(previous));
+    }
+
+    @Test
+    void clockSteppingBackKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(System.currentTimeMillis());
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        long before = generator.nextId();
+        clock.addAndGet(-5_000);
+        long after = generator.nextId();
+
+        assertTrue(after > before);
+        assertEquals(SnowflakeIdGenerator.timestampOf(before), SnowflakeIdGenerator.timestampOf(after));
+    }
+
+    @Test
+    void nodesSharingAMillisecondDoNotCollide() {
+        long now = System.currentTimeMillis();
+        SnowflakeIdGenerator first = new SnowflakeIdGenerator(1, () -> now);
+        SnowflakeIdGenerator second = new SnowflakeIdGenerator(2, () -> now);
+
+        for (int i = 0; i < 1_000; i++) {
+            assertTrue(first.nextId() != second.nextId());
+        }
+    }
+
+    @Test
+    void codesHaveFixedLengthAndSortInIdOrder() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, System::currentTimeMillis);
+
+        String previous = generator.nextCode();
+        for (int i = 0; i < 10_000; i++) {
+            String code = generator.nextCode();
+            assertEquals(13, code.length());
+            assertTrue(code.matches("[0-9A-HJKMNP-TV-Z]+"), code);
+            assertTrue(code.compareTo(previous) > 0);
+            previous = code;
+        }
+        assertEquals("0000000000000", SnowflakeIdGenerator.encode(0));
+        assertEquals("7ZZZZZZZZZZZZ", SnowflakeIdGenerator.encode(Long.MAX_VALUE));
+    }
+
+    @Test
+    void rejectsNodeIdsOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024, System::currentTimeMillis));
+    }
+}